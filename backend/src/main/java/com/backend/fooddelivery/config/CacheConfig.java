@@ -28,6 +28,13 @@ public class CacheConfig {
                 .maximumSize(1000)
                 .recordStats());
 
+        // Ranked listings depend on open state and live ratings, so keep them short-lived
+        cacheManager.registerCustomCache("rankedRestaurants", Caffeine.newBuilder()
+                .expireAfterWrite(30, TimeUnit.SECONDS)
+                .maximumSize(5000)
+                .recordStats()
+                .build());
+
         return cacheManager;
     }
 }
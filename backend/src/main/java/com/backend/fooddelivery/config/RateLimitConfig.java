@@ -1,7 +1,7 @@
 package com.backend.fooddelivery.config;
 
 import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -11,6 +11,9 @@ import java.time.Duration;
 
 /**
  * Rate Limiting Configuration using Bucket4j
+ *
+ * Defines the limits of each policy; the interceptor creates a separate bucket from them for
+ * every client.
  */
 @Configuration
 public class RateLimitConfig {
@@ -42,24 +45,24 @@ public class RateLimitConfig {
     @Value("${rate-limit.general.refill-duration:1}")
     private int generalRefillDuration;
 
-    @Bean(name = "loginBucket")
-    public Bucket loginBucket() {
-        return Bucket.builder()
-                .addLimit(Bandwidth.classic(loginCapacity, Refill.intervally(loginRefillTokens, Duration.ofMinutes(loginRefillDuration))))
-                .build();
+    @Bean(name = "loginBucketConfiguration")
+    public BucketConfiguration loginBucketConfiguration() {
+        return bucketConfiguration(loginCapacity, loginRefillTokens, loginRefillDuration);
     }
 
-    @Bean(name = "orderBucket")
-    public Bucket orderBucket() {
-        return Bucket.builder()
-                .addLimit(Bandwidth.classic(orderCapacity, Refill.intervally(orderRefillTokens, Duration.ofMinutes(orderRefillDuration))))
-                .build();
+    @Bean(name = "orderBucketConfiguration")
+    public BucketConfiguration orderBucketConfiguration() {
+        return bucketConfiguration(orderCapacity, orderRefillTokens, orderRefillDuration);
+    }
+
+    @Bean(name = "generalBucketConfiguration")
+    public BucketConfiguration generalBucketConfiguration() {
+        return bucketConfiguration(generalCapacity, generalRefillTokens, generalRefillDuration);
     }
 
-    @Bean(name = "generalBucket")
-    public Bucket generalBucket() {
-        return Bucket.builder()
-                .addLimit(Bandwidth.classic(generalCapacity, Refill.intervally(generalRefillTokens, Duration.ofMinutes(generalRefillDuration))))
+    private static BucketConfiguration bucketConfiguration(int capacity, int refillTokens, int refillMinutes) {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(capacity, Refill.intervally(refillTokens, Duration.ofMinutes(refillMinutes))))
                 .build();
     }
 }
@@ -2,17 +2,13 @@ package com.backend.fooddelivery.config;
 
 import com.backend.fooddelivery.util.RateLimitInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
 /**
- * Web MVC Configuration - Registers interceptors and static resources
+ * Web MVC Configuration - Registers interceptors
+ * Uploaded files are served by the UploadController
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
@@ -20,25 +16,10 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private RateLimitInterceptor rateLimitInterceptor;
 
-    @Value("${file.upload-dir:./uploads}")
-    private String uploadDir;
-
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(rateLimitInterceptor)
                 .addPathPatterns("/api/**")
                 .excludePathPatterns("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html");
     }
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Get absolute path for the upload directory
-        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-        String uploadLocation = "file:" + uploadPath.toString() + "/";
-
-        // Serve uploaded files at /uploads/**
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations(uploadLocation)
-                .setCachePeriod(3600); // Cache for 1 hour
-    }
 }
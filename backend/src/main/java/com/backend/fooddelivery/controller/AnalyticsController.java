@@ -4,10 +4,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import com.backend.fooddelivery.exception.ResourceNotFoundException;
+import com.backend.fooddelivery.model.ReconciliationRun;
+import com.backend.fooddelivery.model.Restaurant;
 import com.backend.fooddelivery.repository.*;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +34,12 @@ public class AnalyticsController {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ReconciliationRunRepository reconciliationRunRepository;
+
+    @Autowired
+    private PaymentDiscrepancyRepository paymentDiscrepancyRepository;
+
     /**
      * Get restaurant analytics (Restaurant Owner)
      */
@@ -51,11 +61,12 @@ public class AnalyticsController {
         analytics.put("cancelledOrders", orderRepository.countByRestaurantIdAndStatus(restaurantId,
                 com.backend.fooddelivery.model.Order.OrderStatus.CANCELLED));
 
-        // Ratings
-        Double avgRating = reviewRepository.calculateAverageRating(restaurantId);
-        Long totalReviews = reviewRepository.countByRestaurantId(restaurantId);
-        analytics.put("averageRating", avgRating != null ? avgRating : 0.0);
-        analytics.put("totalReviews", totalReviews);
+        // Ratings (maintained incrementally on the restaurant row)
+        Restaurant restaurant = restaurantRepository.findById(restaurantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found"));
+        analytics.put("averageRating", restaurant.getRating());
+        analytics.put("totalReviews", restaurant.getTotalReviews());
+        analytics.put("ratingHistogram", restaurant.getRatingHistogram());
 
         return ResponseEntity.ok(analytics);
     }
@@ -75,4 +86,23 @@ public class AnalyticsController {
 
         return ResponseEntity.ok(analytics);
     }
+
+    /**
+     * Get the latest payment reconciliation report (Admin only)
+     */
+    @GetMapping("/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get reconciliation report", description = "Latest payment reconciliation run and its discrepancies")
+    public ResponseEntity<Map<String, Object>> getReconciliationReport(
+            @RequestParam(defaultValue = "100") int limit) {
+        ReconciliationRun run = reconciliationRunRepository.findFirstByOrderByIdDesc()
+                .orElseThrow(() -> new ResourceNotFoundException("No reconciliation run yet"));
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("run", run);
+        report.put("discrepancies", paymentDiscrepancyRepository.findByRunIdOrderByOrderIdAsc(
+                run.getId(), PageRequest.of(0, Math.min(Math.max(limit, 1), 1000))));
+
+        return ResponseEntity.ok(report);
+    }
 }
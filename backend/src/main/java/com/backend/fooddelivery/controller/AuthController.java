@@ -1,6 +1,7 @@
 package com.backend.fooddelivery.controller;
 
 import com.backend.fooddelivery.dto.request.LoginRequest;
+import com.backend.fooddelivery.dto.request.RefreshTokenRequest;
 import com.backend.fooddelivery.dto.request.RegisterRequest;
 import com.backend.fooddelivery.dto.response.AuthResponse;
 import com.backend.fooddelivery.service.AuthService;
@@ -12,12 +13,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Authentication Controller - Handles user registration and login
  */
 @RestController
 @RequestMapping("/api/auth")
-@Tag(name = "Authentication", description = "User registration and login APIs")
+@Tag(name = "Authentication", description = "User registration, login and token refresh APIs")
 public class AuthController {
 
     @Autowired
@@ -28,9 +31,9 @@ public class AuthController {
      */
     @PostMapping("/register")
     @Operation(summary = "Register new user", description = "Create a new user account with email and password")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        AuthResponse response = authService.register(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        return authService.register(request)
+                .thenApply(response -> new ResponseEntity<>(response, HttpStatus.CREATED));
     }
 
     /**
@@ -38,8 +41,17 @@ public class AuthController {
      */
     @PostMapping("/login")
     @Operation(summary = "Login user", description = "Authenticate user and return JWT token")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Refresh access token
+     */
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh access token", description = "Exchange a refresh token for a new access token and refresh token")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthResponse response = authService.refresh(request);
         return ResponseEntity.ok(response);
     }
 }
@@ -1,16 +1,23 @@
 package com.backend.fooddelivery.controller;
 
+import com.backend.fooddelivery.dto.request.LocationBatchRequest;
+import com.backend.fooddelivery.dto.response.ActiveDeliveryResponse;
+import com.backend.fooddelivery.dto.response.DeliveryHistoryResponse;
 import com.backend.fooddelivery.model.Delivery;
 import com.backend.fooddelivery.service.DeliveryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Delivery Controller - Handles delivery operations
@@ -60,13 +67,43 @@ public class DeliveryController {
     }
 
     /**
-     * Get deliveries for partner
+     * Get delivery history for partner (keyset paginated, newest first)
      */
     @GetMapping("/partner/{partnerId}")
     @PreAuthorize("hasAnyRole('DELIVERY_PARTNER', 'ADMIN')")
-    @Operation(summary = "Get deliveries for delivery partner")
-    public ResponseEntity<List<Delivery>> getPartnerDeliveries(@PathVariable Long partnerId) {
-        List<Delivery> deliveries = deliveryService.getPartnerDeliveries(partnerId);
+    @Operation(summary = "Get delivery history for delivery partner")
+    public ResponseEntity<DeliveryHistoryResponse> getPartnerDeliveries(
+            @PathVariable Long partnerId,
+            @RequestParam(required = false) Delivery.DeliveryStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        DeliveryHistoryResponse history = deliveryService.getPartnerHistory(partnerId, status, cursor, size);
+        return ResponseEntity.ok(history);
+    }
+
+    /**
+     * Get active deliveries for partner
+     */
+    @GetMapping("/partner/{partnerId}/active")
+    @PreAuthorize("hasAnyRole('DELIVERY_PARTNER', 'ADMIN')")
+    @Operation(summary = "Get assigned and picked-up deliveries for delivery partner")
+    public ResponseEntity<List<ActiveDeliveryResponse>> getActiveDeliveries(@PathVariable Long partnerId) {
+        List<ActiveDeliveryResponse> deliveries = deliveryService.getActiveDeliveries(partnerId);
         return ResponseEntity.ok(deliveries);
     }
+
+    /**
+     * Report batched GPS pings of the current partner
+     */
+    @PostMapping("/locations")
+    @PreAuthorize("hasRole('DELIVERY_PARTNER')")
+    @Operation(summary = "Report delivery partner location pings")
+    public ResponseEntity<Map<String, Object>> reportLocations(@Valid @RequestBody LocationBatchRequest request) {
+        int accepted = deliveryService.reportLocations(request);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("received", request.getPings().size());
+        response.put("accepted", accepted);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
 }
@@ -31,7 +31,7 @@ public class FileController {
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "folder", defaultValue = "general") String folder) {
 
-        String filePath = fileUploadService.uploadFile(file, folder);
+        String filePath = fileUploadService.uploadUnmanagedFile(file, folder);
 
         // Build the file URL dynamically based on the current request
         String fileUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
@@ -56,7 +56,7 @@ public class FileController {
             @PathVariable String folder,
             @PathVariable String filename) {
 
-        fileUploadService.deleteFile(folder + "/" + filename);
+        fileUploadService.deleteUnmanagedFile(folder + "/" + filename);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
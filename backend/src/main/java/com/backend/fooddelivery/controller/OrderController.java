@@ -12,9 +12,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Order Controller - Handles order operations
@@ -49,6 +51,15 @@ public class OrderController {
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * Track order live (server-sent events)
+     */
+    @GetMapping(value = "/{id}/track", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Track order", description = "Stream status and ETA updates for an order")
+    public SseEmitter trackOrder(@PathVariable Long id) {
+        return orderService.trackOrder(id);
+    }
+
     /**
      * Get my orders (Customer)
      */
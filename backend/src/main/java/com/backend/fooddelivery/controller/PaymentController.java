@@ -3,6 +3,7 @@ package com.backend.fooddelivery.controller;
 import com.backend.fooddelivery.dto.request.PaymentRequest;
 import com.backend.fooddelivery.model.Payment;
 import com.backend.fooddelivery.service.PaymentService;
+import com.backend.fooddelivery.service.PaymentWebhookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,7 +14,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Payment Controller - Handles payment operations
@@ -27,15 +30,18 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+
     /**
      * Process payment
      */
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER')")
     @Operation(summary = "Process payment", description = "Process payment for an order")
-    public ResponseEntity<Payment> processPayment(@Valid @RequestBody PaymentRequest request) {
-        Payment payment = paymentService.processPayment(request);
-        return new ResponseEntity<>(payment, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<Payment>> processPayment(@Valid @RequestBody PaymentRequest request) {
+        return paymentService.processPayment(request)
+                .thenApply(payment -> new ResponseEntity<>(payment, HttpStatus.CREATED));
     }
 
     /**
@@ -67,9 +73,8 @@ public class PaymentController {
     @PostMapping("/razorpay/order/{orderId}")
     @PreAuthorize("hasRole('CUSTOMER')")
     @Operation(summary = "Create Razorpay order", description = "Create a payment order in Razorpay")
-    public ResponseEntity<Map<String, Object>> createRazorpayOrder(@PathVariable Long orderId) {
-        Map<String, Object> order = paymentService.createRazorpayOrder(orderId);
-        return ResponseEntity.ok(order);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createRazorpayOrder(@PathVariable Long orderId) {
+        return paymentService.createRazorpayOrder(orderId).thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -78,13 +83,30 @@ public class PaymentController {
     @PostMapping("/razorpay/verify/{paymentId}")
     @PreAuthorize("hasRole('CUSTOMER')")
     @Operation(summary = "Verify Razorpay payment", description = "Verify and capture Razorpay payment")
-    public ResponseEntity<Payment> verifyRazorpayPayment(
+    public CompletableFuture<ResponseEntity<Payment>> verifyRazorpayPayment(
             @PathVariable Long paymentId,
             @RequestParam String razorpayOrderId,
             @RequestParam String razorpayPaymentId,
             @RequestParam String razorpaySignature) {
-        Payment payment = paymentService.verifyRazorpayPayment(
-                paymentId, razorpayOrderId, razorpayPaymentId, razorpaySignature);
-        return ResponseEntity.ok(payment);
+        return paymentService.verifyRazorpayPayment(
+                paymentId, razorpayOrderId, razorpayPaymentId, razorpaySignature)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Receive payment gateway webhook
+     */
+    @PostMapping("/webhook")
+    @Operation(summary = "Payment gateway webhook", description = "Signed status updates from Razorpay, applied asynchronously")
+    public ResponseEntity<Map<String, Object>> receiveWebhook(
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestBody String payload) {
+        boolean accepted = paymentWebhookService.receive(eventId, signature, payload);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("eventId", eventId);
+        response.put("status", accepted ? "queued" : "duplicate");
+        return ResponseEntity.ok(response);
     }
 }
@@ -1,6 +1,7 @@
 package com.backend.fooddelivery.controller;
 
 import com.backend.fooddelivery.dto.request.CreateRestaurantRequest;
+import com.backend.fooddelivery.dto.request.RestaurantRankingRequest;
 import com.backend.fooddelivery.dto.request.UpdateRestaurantRequest;
 import com.backend.fooddelivery.dto.response.RestaurantResponse;
 import com.backend.fooddelivery.service.RestaurantService;
@@ -53,6 +54,29 @@ public class RestaurantController {
         return ResponseEntity.ok(restaurants);
     }
 
+    /**
+     * Get restaurants ranked by relevance (Public)
+     */
+    @GetMapping("/ranked")
+    @Operation(summary = "Get ranked restaurants", description = "Rank restaurants by distance, rating, reviews, delivery time, open state and popularity")
+    public ResponseEntity<Page<RestaurantResponse>> getRankedRestaurants(
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double maxDistance,
+            @RequestParam(required = false) String cuisineType,
+            @RequestParam(required = false) Boolean vegetarianOnly,
+            @RequestParam(required = false) String priceRange,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        RestaurantRankingRequest request = new RestaurantRankingRequest(
+                latitude, longitude, maxDistance, cuisineType, vegetarianOnly, priceRange, null);
+        Pageable pageable = PageRequest.of(page, size);
+        Page<RestaurantResponse> restaurants = restaurantService.getRankedRestaurants(request, pageable);
+
+        return ResponseEntity.ok(restaurants);
+    }
+
     /**
      * Get restaurant by ID (Public)
      */
@@ -0,0 +1,35 @@
+package com.backend.fooddelivery.controller;
+
+import com.backend.fooddelivery.service.FileServingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Upload Controller - Serves uploaded files
+ */
+@RestController
+@Tag(name = "Files", description = "File upload and management operations")
+public class UploadController {
+
+    private static final String PREFIX = "/uploads/";
+
+    @Autowired
+    private FileServingService fileServingService;
+
+    /**
+     * Download an uploaded file, ?size=thumb|medium|large picks a resized image variant
+     */
+    @GetMapping(PREFIX + "**")
+    @Operation(summary = "Download a file", description = "Serve an uploaded file, supports Range and conditional requests")
+    public void serveFile(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length() + PREFIX.length());
+        fileServingService.serve(path, request, response);
+    }
+}
@@ -0,0 +1,48 @@
+package com.backend.fooddelivery.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Location Batch Request DTO - GPS pings buffered on the partner's device
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationBatchRequest {
+
+    @NotEmpty(message = "Pings cannot be empty")
+    @Size(max = 500, message = "At most 500 pings per batch")
+    @Valid
+    private List<LocationPing> pings;
+
+    /**
+     * Single GPS ping
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LocationPing {
+
+        @NotNull(message = "Latitude is required")
+        @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+        @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+        private Double latitude;
+
+        @NotNull(message = "Longitude is required")
+        @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+        @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+        private Double longitude;
+
+        private Long timestamp; // Epoch millis when the fix was taken, defaults to receive time
+    }
+}
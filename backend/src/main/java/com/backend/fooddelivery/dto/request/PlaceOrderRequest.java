@@ -1,6 +1,8 @@
 package com.backend.fooddelivery.dto.request;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -30,6 +32,14 @@ public class PlaceOrderRequest {
     @Size(max = 255, message = "Address must not exceed 255 characters")
     private String deliveryAddress;
 
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double deliveryLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double deliveryLongitude;
+
     @Size(max = 500, message = "Special instructions must not exceed 500 characters")
     private String specialInstructions;
 
@@ -0,0 +1,50 @@
+package com.backend.fooddelivery.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Restaurant Ranking Request - Caller location and filters for ranked listings
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestaurantRankingRequest {
+
+    // Geo cell size in degrees (~1.1 km of latitude)
+    private static final double CELL_SIZE = 0.01;
+
+    private Double latitude;
+    private Double longitude;
+    private Double maxDistance; // in km, optional
+    private String cuisineType;
+    private Boolean vegetarianOnly;
+    private String priceRange;
+    private Integer limit;
+
+    /**
+     * Snap the caller location to the center of its geo cell so nearby callers share results
+     */
+    public RestaurantRankingRequest toGeoCell() {
+        RestaurantRankingRequest cell = new RestaurantRankingRequest(latitude, longitude, maxDistance,
+                cuisineType, vegetarianOnly, priceRange, limit);
+        if (latitude != null && longitude != null) {
+            cell.setLatitude((Math.floor(latitude / CELL_SIZE) + 0.5) * CELL_SIZE);
+            cell.setLongitude((Math.floor(longitude / CELL_SIZE) + 0.5) * CELL_SIZE);
+        }
+        return cell;
+    }
+
+    /**
+     * Cache key of (geo cell, filters)
+     */
+    public String cacheKey() {
+        String cell = latitude != null && longitude != null
+                ? (long) Math.floor(latitude / CELL_SIZE) + ":" + (long) Math.floor(longitude / CELL_SIZE)
+                : "any";
+        return cell + "|" + maxDistance + "|" + (cuisineType != null ? cuisineType.toLowerCase() : null)
+                + "|" + vegetarianOnly + "|" + (priceRange != null ? priceRange.toUpperCase() : null)
+                + "|" + limit;
+    }
+}
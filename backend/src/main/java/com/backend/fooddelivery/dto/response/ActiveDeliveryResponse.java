@@ -0,0 +1,25 @@
+package com.backend.fooddelivery.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Active Delivery Response DTO - Compact view of a delivery that is not yet finished
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActiveDeliveryResponse {
+
+    private Long deliveryId;
+    private Long orderId;
+    private String status;
+    private Long tripId;
+    private Integer pickupSequence;
+    private Integer dropoffSequence;
+    private LocalDateTime assignedAt;
+    private LocalDateTime pickedUpAt;
+}
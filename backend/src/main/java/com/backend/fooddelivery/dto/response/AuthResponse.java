@@ -19,6 +19,7 @@ public class AuthResponse {
     private String firstName;
     private String lastName;
     private String role;
+    private String refreshToken;
 
     public AuthResponse(String token, Long id, String email, String firstName, String lastName, String role) {
         this.token = token;
@@ -0,0 +1,21 @@
+package com.backend.fooddelivery.dto.response;
+
+import com.backend.fooddelivery.model.Delivery;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Delivery History Response DTO - One keyset page of a partner's deliveries
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryHistoryResponse {
+
+    private List<Delivery> deliveries;
+    private String nextCursor; // Pass back as cursor to fetch the next page, null on the last page
+    private Boolean hasMore;
+}
@@ -27,6 +27,8 @@ public class OrderResponse {
     private Double discount;
     private Double totalAmount;
     private String deliveryAddress;
+    private Double deliveryLatitude;
+    private Double deliveryLongitude;
     private String specialInstructions;
     private Long deliveryPartnerId;
     private String deliveryPartnerName;
@@ -26,6 +26,7 @@ public class RestaurantResponse {
     private Double rating;
     private Integer totalReviews;
     private Integer averageDeliveryTime;
+    private Integer estimatedDeliveryMinutes; // Learned from completed deliveries
     private String priceRange;
     private Boolean isOpen;
     private Boolean isVegetarianOnly;
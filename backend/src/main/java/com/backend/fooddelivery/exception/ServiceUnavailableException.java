@@ -0,0 +1,15 @@
+package com.backend.fooddelivery.exception;
+
+/**
+ * Custom exception for temporarily unavailable resources (overload, downstream timeouts)
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.backend.fooddelivery.exception;
+
+/**
+ * Custom exception for rejected credentials other than email and password (e.g. refresh tokens)
+ */
+public class UnauthorizedException extends RuntimeException {
+
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.backend.fooddelivery")
 @EnableJpaRepositories(basePackages = "com.backend.fooddelivery.repository")
 @EntityScan(basePackages = "com.backend.fooddelivery.model")
 @EnableCaching
+@EnableScheduling
 public class FoodDeliverySystemApplication {
 
 	public static void main(String[] args) {
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
  * Delivery Entity - Tracks delivery assignments
  */
 @Entity
-@Table(name = "deliveries")
+@Table(name = "deliveries", indexes = @Index(name = "idx_deliveries_partner_assigned", columnList = "deliveryPartnerId, assignedAt DESC"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +28,15 @@ public class Delivery {
     @Column(nullable = false)
     private Long deliveryPartnerId;
 
+    @Column
+    private Long tripId; // Set when the order is stacked with others on one trip
+
+    @Column
+    private Integer pickupSequence; // 1-based stop order of the pickup within the trip
+
+    @Column
+    private Integer dropoffSequence; // 1-based stop order of the drop-off within the trip
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private DeliveryStatus status = DeliveryStatus.ASSIGNED;
@@ -0,0 +1,38 @@
+package com.backend.fooddelivery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * DeliveryTrip Entity - Several orders carried by one partner in a single run
+ * Deliveries on the trip reference it through tripId and carry their stop sequence
+ */
+@Entity
+@Table(name = "delivery_trips")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryTrip {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long deliveryPartnerId;
+
+    @Column(nullable = false)
+    private Integer orderCount;
+
+    @Column(nullable = false)
+    private Double plannedMinutes; // Planned duration from first pickup to last drop-off
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -53,6 +53,12 @@ public class Order {
     @Column(nullable = false, length = 255)
     private String deliveryAddress;
 
+    @Column
+    private Double deliveryLatitude;
+
+    @Column
+    private Double deliveryLongitude;
+
     @Column(length = 500)
     private String specialInstructions;
 
@@ -0,0 +1,36 @@
+package com.backend.fooddelivery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * PartnerLocationTrail Entity - Downsampled history of delivery partner positions
+ * Rows are written in JDBC batches by PartnerLocationStore, not through JPA
+ */
+@Entity
+@Table(name = "partner_location_trail", indexes = @Index(name = "idx_trail_partner_time", columnList = "partnerId, recordedAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartnerLocationTrail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long partnerId;
+
+    @Column(nullable = false)
+    private Double latitude;
+
+    @Column(nullable = false)
+    private Double longitude;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+}
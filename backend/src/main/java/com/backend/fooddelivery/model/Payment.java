@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
  * Payment Entity - Tracks payment transactions
  */
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_transaction_id", columnList = "transactionId"),
+        @Index(name = "idx_payments_order_id", columnList = "orderId")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
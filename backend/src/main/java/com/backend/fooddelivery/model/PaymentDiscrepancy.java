@@ -0,0 +1,55 @@
+package com.backend.fooddelivery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PaymentDiscrepancy Entity - A mismatch between an order and its payments found by reconciliation
+ */
+@Entity
+@Table(name = "payment_discrepancies", indexes = @Index(name = "idx_discrepancies_run_order", columnList = "runId, orderId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentDiscrepancy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long runId;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column
+    private Long paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private DiscrepancyType type;
+
+    @Column(length = 20)
+    private String orderStatus;
+
+    @Column(length = 20)
+    private String paymentStatus;
+
+    @Column
+    private Double orderAmount;
+
+    @Column
+    private Double paymentAmount;
+
+    public enum DiscrepancyType {
+        ORPHAN_PAYMENT, // Payment for an order that does not exist
+        AMOUNT_MISMATCH, // Non-failed payment amount differs from the order total
+        PENDING_FOR_CANCELLED, // Payment still pending on a cancelled order
+        CAPTURED_FOR_CANCELLED, // Completed payment on a cancelled order that was never refunded
+        DELIVERED_UNPAID, // Prepaid order delivered without a completed payment
+        DUPLICATE_CAPTURE // More than one completed payment for an order
+    }
+}
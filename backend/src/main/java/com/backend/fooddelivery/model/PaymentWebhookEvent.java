@@ -0,0 +1,69 @@
+package com.backend.fooddelivery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * PaymentWebhookEvent Entity - Inbox of gateway webhook events
+ * Each event is stored with its raw payload before the gateway is acknowledged and applied
+ * afterwards. The unique event ID makes redelivered events idempotent across restarts and nodes
+ */
+@Entity
+@Table(name = "payment_webhook_events",
+        uniqueConstraints = @UniqueConstraint(name = "uk_webhook_event_id", columnNames = "eventId"),
+        indexes = @Index(name = "idx_webhook_events_status", columnList = "status, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentWebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String eventId;
+
+    @Column(nullable = false, length = 50)
+    private String eventType;
+
+    @Column(length = 255)
+    private String gatewayOrderId;
+
+    @Column(length = 255)
+    private String gatewayPaymentId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // Raw signed body as received
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.RECEIVED;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column
+    private Long paymentId; // Matched payment, null if none was found
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+
+    @Column
+    private LocalDateTime processedAt;
+
+    /**
+     * Inbox Status
+     */
+    public enum Status {
+        RECEIVED, // Stored and acknowledged, not yet applied
+        PROCESSED, // Applied to the matching payment (or no payment matched)
+        FAILED // Gave up after repeated errors, kept for inspection
+    }
+}
@@ -0,0 +1,28 @@
+package com.backend.fooddelivery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * RateLimitBucket Entity - Rate limit bucket state shared by all nodes
+ * Read and written through JDBC by the distributed bucket store; the entity only defines the table
+ */
+@Entity
+@Table(name = "rate_limit_buckets", indexes = @Index(name = "idx_rate_limit_buckets_expires_at", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitBucket {
+
+    @Id
+    @Column(length = 255)
+    private String id; // Policy and client key
+
+    @Column(length = 4096)
+    private byte[] state; // Serialized Bucket4j state, null until first used
+
+    @Column(nullable = false)
+    private Long expiresAt; // Epoch millis after which the bucket is full again and can be deleted
+}
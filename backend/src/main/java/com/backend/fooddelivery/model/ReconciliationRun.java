@@ -0,0 +1,56 @@
+package com.backend.fooddelivery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ReconciliationRun Entity - One pass of the payment reconciliation job
+ * The checkpoint is the last order ID whose discrepancies have been committed, an
+ * interrupted run resumes after it
+ */
+@Entity
+@Table(name = "reconciliation_runs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RunStatus status = RunStatus.RUNNING;
+
+    @Column(nullable = false)
+    private Long checkpointOrderId = 0L;
+
+    @Column(nullable = false)
+    private Long maxOrderId; // Orders placed after the run started are left for the next run
+
+    @Column(nullable = false)
+    private Long ordersScanned = 0L;
+
+    @Column(nullable = false)
+    private Long paymentsScanned = 0L;
+
+    @Column(nullable = false)
+    private Long discrepancyCount = 0L;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column
+    private LocalDateTime finishedAt;
+
+    public enum RunStatus {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
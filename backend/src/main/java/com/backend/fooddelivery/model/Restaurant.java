@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -51,6 +52,31 @@ public class Restaurant {
     @Column(nullable = false)
     private Integer totalReviews = 0;
 
+    // Running rating aggregates, maintained incrementally on each review
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long ratingSum = 0L;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer oneStarCount = 0;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer twoStarCount = 0;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer threeStarCount = 0;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer fourStarCount = 0;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer fiveStarCount = 0;
+
     @Column(nullable = false)
     private Integer averageDeliveryTime = 30; // in minutes
 
@@ -96,6 +122,13 @@ public class Restaurant {
         HIGH // ₹₹₹
     }
 
+    /**
+     * Get rating histogram, index 0 = 1 star ... index 4 = 5 stars
+     */
+    public int[] getRatingHistogram() {
+        return new int[] { oneStarCount, twoStarCount, threeStarCount, fourStarCount, fiveStarCount };
+    }
+
     /**
      * Check if restaurant is currently open
      */
@@ -112,9 +145,9 @@ public class Restaurant {
 
         // Handle overnight hours (e.g., 22:00 - 02:00)
         if (closingTime.isBefore(openingTime)) {
-            return now.isAfter(openingTime) || now.isBefore(closingTime);
+            return !now.isBefore(openingTime) || now.isBefore(closingTime);
         }
 
-        return now.isAfter(openingTime) && now.isBefore(closingTime);
+        return !now.isBefore(openingTime) && now.isBefore(closingTime);
     }
 }
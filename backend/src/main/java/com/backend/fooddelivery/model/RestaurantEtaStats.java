@@ -0,0 +1,44 @@
+package com.backend.fooddelivery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * RestaurantEtaStats Entity - Persisted snapshot of learned prep and travel times
+ * One row per restaurant and time-of-day bucket
+ */
+@Entity
+@Table(name = "restaurant_eta_stats", uniqueConstraints = @UniqueConstraint(columnNames = { "restaurantId", "timeBucket" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestaurantEtaStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long restaurantId;
+
+    @Column(nullable = false)
+    private Integer timeBucket; // -1 for the all-day estimate
+
+    @Column(nullable = false)
+    private Double prepMinutes;
+
+    @Column(nullable = false)
+    private Double travelMinutes;
+
+    @Column(nullable = false)
+    private Long samples;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -1,9 +1,14 @@
 package com.backend.fooddelivery.repository;
 
 import com.backend.fooddelivery.model.Delivery;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +17,41 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
 
     Optional<Delivery> findByOrderId(Long orderId);
 
-    List<Delivery> findByDeliveryPartnerId(Long deliveryPartnerId);
-
     List<Delivery> findByStatus(Delivery.DeliveryStatus status);
+
+    List<Delivery> findByStatusIn(Collection<Delivery.DeliveryStatus> statuses);
+
+    /**
+     * First page of a partner's deliveries, newest first (uses idx_deliveries_partner_assigned)
+     */
+    @Query("SELECT d FROM Delivery d WHERE d.deliveryPartnerId = :partnerId " +
+            "AND (:status IS NULL OR d.status = :status) ORDER BY d.assignedAt DESC, d.id DESC")
+    List<Delivery> findPartnerHistory(@Param("partnerId") Long partnerId,
+            @Param("status") Delivery.DeliveryStatus status, Pageable pageable);
+
+    /**
+     * Next page of a partner's deliveries strictly after the (assignedAt, id) cursor
+     */
+    @Query("SELECT d FROM Delivery d WHERE d.deliveryPartnerId = :partnerId " +
+            "AND (:status IS NULL OR d.status = :status) " +
+            "AND (d.assignedAt < :assignedAt OR (d.assignedAt = :assignedAt AND d.id < :id)) " +
+            "ORDER BY d.assignedAt DESC, d.id DESC")
+    List<Delivery> findPartnerHistoryBefore(@Param("partnerId") Long partnerId,
+            @Param("status") Delivery.DeliveryStatus status,
+            @Param("assignedAt") LocalDateTime assignedAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * Find partners currently carrying a delivery
+     */
+    @Query("SELECT DISTINCT d.deliveryPartnerId FROM Delivery d WHERE d.status IN ('ASSIGNED', 'PICKED_UP')")
+    List<Long> findBusyPartnerIds();
+
+    /**
+     * Find which of the given partners are currently carrying a delivery
+     */
+    @Query("SELECT DISTINCT d.deliveryPartnerId FROM Delivery d WHERE d.deliveryPartnerId IN :partnerIds " +
+            "AND d.status IN ('ASSIGNED', 'PICKED_UP')")
+    List<Long> findBusyPartnerIdsIn(@Param("partnerIds") Collection<Long> partnerIds);
 }
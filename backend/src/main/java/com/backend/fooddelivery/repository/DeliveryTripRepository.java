@@ -0,0 +1,9 @@
+package com.backend.fooddelivery.repository;
+
+import com.backend.fooddelivery.model.DeliveryTrip;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeliveryTripRepository extends JpaRepository<DeliveryTrip, Long> {
+}
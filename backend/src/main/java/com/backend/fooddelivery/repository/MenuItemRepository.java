@@ -71,4 +71,10 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
      * Search across all restaurants
      */
     Page<MenuItem> findByNameContainingIgnoreCaseAndIsActiveTrue(String name, Pageable pageable);
+
+    /**
+     * Total order count per restaurant (popularity)
+     */
+    @Query("SELECT m.restaurantId, SUM(m.orderCount) FROM MenuItem m GROUP BY m.restaurantId")
+    List<Object[]> sumOrderCountByRestaurant();
 }
@@ -1,14 +1,17 @@
 package com.backend.fooddelivery.repository;
 
 import com.backend.fooddelivery.model.Order;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -69,6 +72,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     List<Order> findByStatusOrderByOrderedAtAsc(Order.OrderStatus status);
 
+    /**
+     * Lock orders for update, in ID order so concurrent lockers cannot deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> lockAllById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find unassigned orders ready for pickup with their pickup and drop-off coordinates, oldest first
+     * Returns rows of [orderId, restaurantLatitude, restaurantLongitude, deliveryLatitude, deliveryLongitude]
+     */
+    @Query("SELECT o.id, r.latitude, r.longitude, o.deliveryLatitude, o.deliveryLongitude " +
+            "FROM Order o, Restaurant r WHERE r.id = o.restaurantId " +
+            "AND o.status = 'READY_FOR_PICKUP' AND o.deliveryPartnerId IS NULL " +
+            "AND r.latitude IS NOT NULL AND r.longitude IS NOT NULL ORDER BY o.orderedAt ASC")
+    List<Object[]> findUnassignedReadyOrders(Pageable pageable);
+
+    /**
+     * Load what the live ETA updater needs for a batch of orders
+     * Returns rows of [orderId, restaurantId, orderedAt, deliveryLatitude, deliveryLongitude, estimatedDeliveryTime]
+     */
+    @Query("SELECT o.id, o.restaurantId, o.orderedAt, o.deliveryLatitude, o.deliveryLongitude, o.estimatedDeliveryTime " +
+            "FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findEtaInputs(@Param("ids") Collection<Long> ids);
+
     /**
      * Calculate total revenue for restaurant
      */
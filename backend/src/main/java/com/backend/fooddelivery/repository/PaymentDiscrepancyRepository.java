@@ -0,0 +1,13 @@
+package com.backend.fooddelivery.repository;
+
+import com.backend.fooddelivery.model.PaymentDiscrepancy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentDiscrepancyRepository extends JpaRepository<PaymentDiscrepancy, Long> {
+    List<PaymentDiscrepancy> findByRunIdOrderByOrderIdAsc(Long runId, Pageable pageable);
+}
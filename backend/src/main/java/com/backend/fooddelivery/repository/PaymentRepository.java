@@ -4,6 +4,8 @@ import com.backend.fooddelivery.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +13,6 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByOrderId(Long orderId);
 
     Optional<Payment> findByTransactionId(String transactionId);
+
+    List<Payment> findByTransactionIdIn(Collection<String> transactionIds);
 }
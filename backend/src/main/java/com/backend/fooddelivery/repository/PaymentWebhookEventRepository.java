@@ -0,0 +1,35 @@
+package com.backend.fooddelivery.repository;
+
+import com.backend.fooddelivery.model.PaymentWebhookEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+
+    /**
+     * Check whether an event with this gateway event ID was already stored
+     */
+    boolean existsByEventId(String eventId);
+
+    /**
+     * Next page of events still waiting to be applied, in the order they were received
+     */
+    @Query("SELECT e.id FROM PaymentWebhookEvent e WHERE e.status = 'RECEIVED' AND e.id > :afterId ORDER BY e.id")
+    List<Long> findReceivedIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Lock the given events that are still waiting to be applied, skipping any another node applied meanwhile
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM PaymentWebhookEvent e WHERE e.id IN :ids AND e.status = 'RECEIVED' ORDER BY e.id")
+    List<PaymentWebhookEvent> lockReceived(@Param("ids") Collection<Long> ids);
+}
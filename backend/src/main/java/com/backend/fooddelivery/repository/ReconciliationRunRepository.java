@@ -0,0 +1,14 @@
+package com.backend.fooddelivery.repository;
+
+import com.backend.fooddelivery.model.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+    Optional<ReconciliationRun> findFirstByStatusOrderByIdDesc(ReconciliationRun.RunStatus status);
+
+    Optional<ReconciliationRun> findFirstByOrderByIdDesc();
+}
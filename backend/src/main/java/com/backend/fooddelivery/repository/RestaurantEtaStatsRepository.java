@@ -0,0 +1,14 @@
+package com.backend.fooddelivery.repository;
+
+import com.backend.fooddelivery.model.RestaurantEtaStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RestaurantEtaStatsRepository extends JpaRepository<RestaurantEtaStats, Long> {
+
+    List<RestaurantEtaStats> findByRestaurantIdIn(Collection<Long> restaurantIds);
+}
@@ -3,7 +3,9 @@ package com.backend.fooddelivery.repository;
 import com.backend.fooddelivery.model.Restaurant;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -74,8 +76,44 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
             @Param("distance") Double distance);
 
     /**
-     * Find currently open restaurants
+     * Add one review to the running rating aggregates in a single statement
      */
-    @Query("SELECT r FROM Restaurant r WHERE r.isActive = true AND r.isOpen = true")
-    Page<Restaurant> findOpenRestaurants(Pageable pageable);
+    @Modifying
+    @Query("UPDATE Restaurant r SET " +
+            "r.rating = (r.ratingSum + :rating) * 1.0 / (r.totalReviews + 1), " +
+            "r.ratingSum = r.ratingSum + :rating, " +
+            "r.totalReviews = r.totalReviews + 1, " +
+            "r.oneStarCount = r.oneStarCount + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "r.twoStarCount = r.twoStarCount + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "r.threeStarCount = r.threeStarCount + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "r.fourStarCount = r.fourStarCount + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "r.fiveStarCount = r.fiveStarCount + CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+            "WHERE r.id = :restaurantId")
+    int addRating(@Param("restaurantId") Long restaurantId, @Param("rating") int rating);
+
+    /**
+     * Find restaurants whose rating aggregates predate incremental maintenance
+     */
+    @Query("SELECT r.id FROM Restaurant r WHERE r.totalReviews > 0 AND r.ratingSum = 0")
+    List<Long> findIdsWithMissingRatingAggregates();
+
+    /**
+     * Load the IDs of all active restaurants in the requested order
+     */
+    @Query("SELECT r.id FROM Restaurant r WHERE r.isActive = true")
+    List<Long> findIdsOfActiveRestaurants(Sort sort);
+
+    /**
+     * Load only the columns needed by the open hours index
+     * Each row is [id, isOpen, openingTime, closingTime]
+     */
+    @Query("SELECT r.id, r.isOpen, r.openingTime, r.closingTime FROM Restaurant r WHERE r.isActive = true")
+    List<Object[]> findOpenHoursOfActiveRestaurants();
+
+    /**
+     * Load only the columns needed by the ranking snapshot
+     */
+    @Query("SELECT r.id, r.latitude, r.longitude, r.rating, r.totalReviews, r.averageDeliveryTime, " +
+            "r.cuisineType, r.isVegetarianOnly, r.priceRange FROM Restaurant r WHERE r.isActive = true")
+    List<Object[]> findRankingAttributesOfActiveRestaurants();
 }
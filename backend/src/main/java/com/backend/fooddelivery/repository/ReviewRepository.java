@@ -19,9 +19,9 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     boolean existsByOrderId(Long orderId);
 
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.restaurantId = :restaurantId")
-    Double calculateAverageRating(@Param("restaurantId") Long restaurantId);
-
-    @Query("SELECT COUNT(r) FROM Review r WHERE r.restaurantId = :restaurantId")
-    Long countByRestaurantId(@Param("restaurantId") Long restaurantId);
+    /**
+     * Review count per star for a restaurant, each row is [rating, count]
+     */
+    @Query("SELECT r.rating, COUNT(r) FROM Review r WHERE r.restaurantId = :restaurantId GROUP BY r.rating")
+    List<Object[]> countByRatingForRestaurant(@Param("restaurantId") Long restaurantId);
 }
@@ -0,0 +1,30 @@
+package com.backend.fooddelivery.repository;
+
+import com.backend.fooddelivery.model.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    /**
+     * Add a reference to a stored blob, returns 0 if it is not stored yet
+     */
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount + 1 WHERE f.hash = :hash")
+    int addReference(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount - 1 WHERE f.hash = :hash AND f.refCount > 0")
+    int removeReference(@Param("hash") String hash);
+
+    /**
+     * Delete a blob's row once nothing references it, returns 0 if it is still in use
+     */
+    @Modifying
+    @Query("DELETE FROM StoredFile f WHERE f.hash = :hash AND f.refCount = 0")
+    int deleteUnreferenced(@Param("hash") String hash);
+}
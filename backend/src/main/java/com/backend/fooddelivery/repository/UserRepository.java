@@ -1,9 +1,15 @@
 package com.backend.fooddelivery.repository;
 
 import com.backend.fooddelivery.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +32,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * Find active user by email
      */
     Optional<User> findByEmailAndIsActiveTrue(String email);
+
+    /**
+     * Lock users for update, in ID order so concurrent lockers cannot deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> lockAllById(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,90 @@
+package com.backend.fooddelivery.security;
+
+import com.backend.fooddelivery.exception.ResourceNotFoundException;
+import com.backend.fooddelivery.model.User;
+import com.backend.fooddelivery.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Current User Resolver - The authenticated user, loaded at most once per request
+ *
+ * The user is memoized as a request attribute, and across requests kept in a short-lived
+ * cache keyed by email. The returned entity is shared and detached: callers that modify the
+ * user must load their own copy and call evict afterwards.
+ */
+@Component
+public class CurrentUserResolver {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserResolver.class.getName() + ".user";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${current-user.cache-ttl-ms:5000}")
+    private long cacheTtlMillis;
+
+    @Value("${current-user.cache-max-size:10000}")
+    private long cacheMaxSize;
+
+    private Cache<String, User> users;
+
+    @PostConstruct
+    public void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+                .build();
+    }
+
+    /**
+     * Get the authenticated user
+     */
+    public User getCurrentUser() {
+        String email = getCurrentUserEmail();
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User memoized
+                && memoized.getEmail().equals(email)) {
+            return memoized;
+        }
+
+        User user = users.get(email, key -> userRepository.findByEmail(key).orElse(null));
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * Get the authenticated user's email
+     */
+    public String getCurrentUserEmail() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+
+    /**
+     * Drop the cached copy of a user after it was modified
+     */
+    public void evict(String email) {
+        users.invalidate(email);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.backend.fooddelivery.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked Subject Registry - Emails whose tokens must no longer be accepted
+ *
+ * Holds the deactivated users, reloaded from the database every refresh interval so that
+ * deactivation on any node takes effect everywhere within that interval. Deactivations on this
+ * node are added immediately.
+ */
+@Component
+public class RevokedSubjectRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedSubjectRegistry.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Set<String> revoked = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Check whether tokens for this subject are revoked
+     */
+    public boolean isRevoked(String email) {
+        return revoked.contains(email);
+    }
+
+    /**
+     * Revoke a subject on this node without waiting for the next refresh
+     */
+    public void revoke(String email) {
+        revoked.add(email);
+    }
+
+    /**
+     * Reload revoked subjects from the database
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:10000}")
+    public void refresh() {
+        try {
+            Set<String> loaded = ConcurrentHashMap.newKeySet();
+            loaded.addAll(jdbcTemplate.queryForList("SELECT email FROM users WHERE is_active = false", String.class));
+            revoked = loaded;
+        } catch (RuntimeException ex) {
+            logger.error("Failed to refresh revoked subjects, keeping previous set of {}", revoked.size(), ex);
+        }
+    }
+}
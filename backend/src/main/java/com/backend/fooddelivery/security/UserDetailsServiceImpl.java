@@ -39,6 +39,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 getAuthorities(user));
     }
 
+    /**
+     * Load the principal of an active user, for tokens without user ID and role claims
+     */
+    public UserPrincipal loadPrincipal(String email) throws UsernameNotFoundException {
+        User user = userRepository.findByEmailAndIsActiveTrue(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole());
+    }
+
     /**
      * Get user authorities/roles
      */
@@ -0,0 +1,61 @@
+package com.backend.fooddelivery.security;
+
+import com.backend.fooddelivery.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User Principal - Authenticated user built from JWT claims, without a database lookup
+ */
+public class UserPrincipal implements Principal {
+
+    private static final Map<User.Role, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(User.Role.class);
+
+    static {
+        for (User.Role role : User.Role.values()) {
+            AUTHORITIES.put(role, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        }
+    }
+
+    private final Long id;
+    private final String email;
+    private final User.Role role;
+
+    public UserPrincipal(Long id, String email, User.Role role) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return AUTHORITIES.get(role);
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
@@ -0,0 +1,127 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.dto.response.ActiveDeliveryResponse;
+import com.backend.fooddelivery.model.Delivery;
+import com.backend.fooddelivery.repository.DeliveryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active Delivery Registry - In-memory view of deliveries that are assigned or picked up
+ *
+ * Loaded from the database on startup and kept current by DeliveryService, which applies
+ * changes only after its transaction commits so a rollback never leaks into the view.
+ */
+@Service
+public class ActiveDeliveryRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveDeliveryRegistry.class);
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    // Partner ID -> (delivery ID -> compact delivery)
+    private final Map<Long, Map<Long, ActiveDeliveryResponse>> byPartner = new ConcurrentHashMap<>();
+
+    /**
+     * Load non-final deliveries once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Delivery> active = deliveryRepository.findByStatusIn(
+                List.of(Delivery.DeliveryStatus.ASSIGNED, Delivery.DeliveryStatus.PICKED_UP));
+        byPartner.clear();
+        active.forEach(this::apply);
+        logger.info("Loaded {} active deliveries", active.size());
+    }
+
+    /**
+     * Get active deliveries of a partner in stop order
+     */
+    public List<ActiveDeliveryResponse> getActiveDeliveries(Long deliveryPartnerId) {
+        Map<Long, ActiveDeliveryResponse> deliveries = byPartner.get(deliveryPartnerId);
+        if (deliveries == null) {
+            return List.of();
+        }
+        List<ActiveDeliveryResponse> result = new ArrayList<>(deliveries.values());
+        result.sort(Comparator.comparing(ActiveDeliveryResponse::getAssignedAt,
+                Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(ActiveDeliveryResponse::getPickupSequence, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /**
+     * Get all picked-up deliveries, grouped by partner and ordered by drop-off sequence
+     */
+    public Map<Long, List<ActiveDeliveryResponse>> getPickedUpByPartner() {
+        Map<Long, List<ActiveDeliveryResponse>> result = new HashMap<>();
+        byPartner.forEach((partnerId, deliveries) -> {
+            List<ActiveDeliveryResponse> pickedUp = new ArrayList<>();
+            for (ActiveDeliveryResponse delivery : deliveries.values()) {
+                if (Delivery.DeliveryStatus.PICKED_UP.name().equals(delivery.getStatus())) {
+                    pickedUp.add(delivery);
+                }
+            }
+            if (!pickedUp.isEmpty()) {
+                pickedUp.sort(Comparator.comparing(ActiveDeliveryResponse::getDropoffSequence,
+                        Comparator.nullsFirst(Comparator.naturalOrder())));
+                result.put(partnerId, pickedUp);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reflect saved deliveries once the surrounding transaction commits
+     */
+    public void updateAfterCommit(Collection<Delivery> deliveries) {
+        List<Delivery> saved = List.copyOf(deliveries);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            saved.forEach(this::apply);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                saved.forEach(ActiveDeliveryRegistry.this::apply);
+            }
+        });
+    }
+
+    private void apply(Delivery delivery) {
+        boolean active = delivery.getStatus() == Delivery.DeliveryStatus.ASSIGNED
+                || delivery.getStatus() == Delivery.DeliveryStatus.PICKED_UP;
+        if (!active) {
+            byPartner.computeIfPresent(delivery.getDeliveryPartnerId(), (partnerId, deliveries) -> {
+                deliveries.remove(delivery.getId());
+                return deliveries.isEmpty() ? null : deliveries;
+            });
+            return;
+        }
+        byPartner.compute(delivery.getDeliveryPartnerId(), (partnerId, deliveries) -> {
+            Map<Long, ActiveDeliveryResponse> map = deliveries != null ? deliveries : new ConcurrentHashMap<>();
+            map.put(delivery.getId(), toResponse(delivery));
+            return map;
+        });
+    }
+
+    private static ActiveDeliveryResponse toResponse(Delivery delivery) {
+        return new ActiveDeliveryResponse(delivery.getId(), delivery.getOrderId(), delivery.getStatus().name(),
+                delivery.getTripId(), delivery.getPickupSequence(), delivery.getDropoffSequence(),
+                delivery.getAssignedAt(), delivery.getPickedUpAt());
+    }
+}
@@ -1,23 +1,25 @@
 package com.backend.fooddelivery.service;
 
 import com.backend.fooddelivery.dto.request.LoginRequest;
+import com.backend.fooddelivery.dto.request.RefreshTokenRequest;
 import com.backend.fooddelivery.dto.request.RegisterRequest;
 import com.backend.fooddelivery.dto.response.AuthResponse;
 import com.backend.fooddelivery.exception.BadRequestException;
+import com.backend.fooddelivery.exception.UnauthorizedException;
 import com.backend.fooddelivery.model.User;
 import com.backend.fooddelivery.repository.UserRepository;
 import com.backend.fooddelivery.security.JwtTokenProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Authentication Service - Handles user registration and login
+ * Password hashing runs on the bounded PasswordHashingService pool, not the request thread, and
+ * the database and token work that follows runs on its callback pool
  */
 @Service
 public class AuthService {
@@ -26,19 +28,21 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private JwtTokenProvider jwtTokenProvider;
 
     @Autowired
-    private JwtTokenProvider jwtTokenProvider;
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     /**
      * Register new user
      */
-    @Transactional
-    public AuthResponse register(RegisterRequest request) {
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new BadRequestException("Email already exists");
@@ -53,10 +57,44 @@ public class AuthService {
                     "Invalid role. Must be one of: ADMIN, CUSTOMER, RESTAURANT_OWNER, DELIVERY_PARTNER");
         }
 
+        // User and refresh token are inserted in one transaction
+        return passwordHashingService.encode(request.getPassword())
+                .thenApplyAsync(passwordHash -> transactionTemplate.execute(tx -> createUser(request, role, passwordHash)),
+                        passwordHashingService.callbackExecutor());
+    }
+
+    /**
+     * Login user
+     */
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
+        // Unknown and inactive users are checked against a dummy hash so they take as long as real ones
+        User user = userRepository.findByEmailAndIsActiveTrue(request.getEmail()).orElse(null);
+
+        return passwordHashingService.matches(request.getPassword(), user != null ? user.getPassword() : null)
+                .thenApplyAsync(matches -> {
+                    if (!matches) {
+                        throw new BadCredentialsException("Bad credentials");
+                    }
+                    return toAuthResponse(user);
+                }, passwordHashingService.callbackExecutor());
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and a new refresh token, without any password hashing
+     */
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        Long userId = refreshTokenService.consume(request.getRefreshToken());
+        User user = userRepository.findById(userId)
+                .filter(User::getIsActive)
+                .orElseThrow(() -> new UnauthorizedException("Account is no longer active"));
+        return toAuthResponse(user);
+    }
+
+    private AuthResponse createUser(RegisterRequest request, User.Role role, String passwordHash) {
         // Create new user
         User user = new User();
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHash);
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setPhone(request.getPhone());
@@ -66,45 +104,21 @@ public class AuthService {
         // Save user
         User savedUser = userRepository.save(user);
 
-        // Generate JWT token
-        String token = jwtTokenProvider.generateTokenFromUsername(savedUser.getEmail());
-
-        // Return auth response
-        return new AuthResponse(
-                token,
-                savedUser.getId(),
-                savedUser.getEmail(),
-                savedUser.getFirstName(),
-                savedUser.getLastName(),
-                savedUser.getRole().name());
+        return toAuthResponse(savedUser);
     }
 
-    /**
-     * Login user
-     */
-    public AuthResponse login(LoginRequest request) {
-        // Authenticate user
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getEmail(),
-                        request.getPassword()));
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-
+    private AuthResponse toAuthResponse(User user) {
         // Generate JWT token
-        String token = jwtTokenProvider.generateToken(authentication);
-
-        // Get user details
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new BadRequestException("User not found"));
+        String token = jwtTokenProvider.generateToken(user);
 
-        // Return auth response
-        return new AuthResponse(
+        AuthResponse response = new AuthResponse(
                 token,
                 user.getId(),
                 user.getEmail(),
                 user.getFirstName(),
                 user.getLastName(),
                 user.getRole().name());
+        response.setRefreshToken(refreshTokenService.issue(user.getId()));
+        return response;
     }
 }
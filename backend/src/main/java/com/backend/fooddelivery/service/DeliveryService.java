@@ -1,16 +1,35 @@
 package com.backend.fooddelivery.service;
 
+import com.backend.fooddelivery.dto.request.LocationBatchRequest;
+import com.backend.fooddelivery.dto.response.ActiveDeliveryResponse;
+import com.backend.fooddelivery.dto.response.DeliveryHistoryResponse;
+import com.backend.fooddelivery.exception.BadRequestException;
 import com.backend.fooddelivery.exception.ResourceNotFoundException;
 import com.backend.fooddelivery.model.Delivery;
+import com.backend.fooddelivery.model.DeliveryTrip;
 import com.backend.fooddelivery.model.Order;
+import com.backend.fooddelivery.model.User;
 import com.backend.fooddelivery.repository.DeliveryRepository;
+import com.backend.fooddelivery.repository.DeliveryTripRepository;
 import com.backend.fooddelivery.repository.OrderRepository;
+import com.backend.fooddelivery.repository.UserRepository;
+import com.backend.fooddelivery.security.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Delivery Service - Handles delivery operations
@@ -18,12 +37,38 @@ import java.util.List;
 @Service
 public class DeliveryService {
 
+    // Tolerated device clock skew for ping timestamps
+    private static final long MAX_CLOCK_SKEW_MILLIS = 60_000;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     @Autowired
     private DeliveryRepository deliveryRepository;
 
+    @Autowired
+    private DeliveryTripRepository deliveryTripRepository;
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private DeliveryTimeEstimator deliveryTimeEstimator;
+
+    @Autowired
+    private PartnerLocationStore partnerLocationStore;
+
+    @Autowired
+    private ActiveDeliveryRegistry activeDeliveryRegistry;
+
+    @Autowired
+    private OrderTrackingService orderTrackingService;
+
     /**
      * Assign delivery partner to order
      */
@@ -32,6 +77,9 @@ public class DeliveryService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
 
+        // Serialize with dispatch passes, which re-check the partner under the same lock
+        userRepository.lockAllById(List.of(deliveryPartnerId));
+
         Delivery delivery = new Delivery();
         delivery.setOrderId(orderId);
         delivery.setDeliveryPartnerId(deliveryPartnerId);
@@ -41,7 +89,104 @@ public class DeliveryService {
         order.setDeliveryPartnerId(deliveryPartnerId);
         orderRepository.save(order);
 
-        return deliveryRepository.save(delivery);
+        Delivery saved = deliveryRepository.save(delivery);
+        activeDeliveryRegistry.updateAfterCommit(List.of(saved));
+        return saved;
+    }
+
+    /**
+     * Assign a batch of planned trips to partners in one transaction (trip -> partnerId)
+     * Partners and orders are locked first, so trips whose partner took a delivery and orders
+     * that were assigned or changed status in the meantime are left out
+     * Returns the number of orders assigned
+     */
+    @Transactional
+    public int assignTrips(Map<TripPlanner.Trip, Long> assignments) {
+        Set<Long> partnerIds = new HashSet<>(assignments.values());
+        userRepository.lockAllById(partnerIds);
+        Set<Long> busyPartners = new HashSet<>(deliveryRepository.findBusyPartnerIdsIn(partnerIds));
+
+        List<Long> orderIds = new ArrayList<>();
+        assignments.forEach((trip, partnerId) -> {
+            if (busyPartners.contains(partnerId)) {
+                return;
+            }
+            for (long orderId : trip.orderIds) {
+                orderIds.add(orderId);
+            }
+        });
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.lockAllById(orderIds)) {
+            if (order.getStatus() == Order.OrderStatus.READY_FOR_PICKUP && order.getDeliveryPartnerId() == null) {
+                orders.put(order.getId(), order);
+            }
+        }
+
+        List<Delivery> deliveries = new ArrayList<>(orders.size());
+        for (Map.Entry<TripPlanner.Trip, Long> entry : assignments.entrySet()) {
+            TripPlanner.Trip trip = entry.getKey();
+            Long deliveryPartnerId = entry.getValue();
+            if (busyPartners.contains(deliveryPartnerId)) {
+                continue;
+            }
+
+            List<Integer> stillReady = new ArrayList<>(trip.size());
+            for (int k = 0; k < trip.size(); k++) {
+                if (orders.containsKey(trip.orderIds[k])) {
+                    stillReady.add(k);
+                }
+            }
+            if (stillReady.isEmpty()) {
+                continue;
+            }
+
+            Long tripId = null;
+            if (stillReady.size() > 1) {
+                DeliveryTrip deliveryTrip = new DeliveryTrip();
+                deliveryTrip.setDeliveryPartnerId(deliveryPartnerId);
+                deliveryTrip.setOrderCount(stillReady.size());
+                deliveryTrip.setPlannedMinutes(trip.plannedMinutes);
+                tripId = deliveryTripRepository.save(deliveryTrip).getId();
+            }
+
+            for (int k : stillReady) {
+                Order order = orders.get(trip.orderIds[k]);
+
+                Delivery delivery = new Delivery();
+                delivery.setOrderId(order.getId());
+                delivery.setDeliveryPartnerId(deliveryPartnerId);
+                delivery.setStatus(Delivery.DeliveryStatus.ASSIGNED);
+                if (tripId != null) {
+                    delivery.setTripId(tripId);
+                    delivery.setPickupSequence(rank(trip.pickupSequence, stillReady, k));
+                    delivery.setDropoffSequence(stillReady.size() + rank(trip.dropoffSequence, stillReady, k));
+                }
+                deliveries.add(delivery);
+
+                order.setDeliveryPartnerId(deliveryPartnerId);
+            }
+        }
+
+        orderRepository.saveAll(orders.values());
+        activeDeliveryRegistry.updateAfterCommit(deliveryRepository.saveAll(deliveries));
+        return deliveries.size();
+    }
+
+    /**
+     * 1-based position of member k among the remaining members when ordered by the planned sequence
+     */
+    private static int rank(int[] sequence, List<Integer> members, int k) {
+        int rank = 1;
+        for (int other : members) {
+            if (sequence[other] < sequence[k]) {
+                rank++;
+            }
+        }
+        return rank;
     }
 
     /**
@@ -55,7 +200,9 @@ public class DeliveryService {
         delivery.setStatus(Delivery.DeliveryStatus.PICKED_UP);
         delivery.setPickedUpAt(LocalDateTime.now());
 
-        return deliveryRepository.save(delivery);
+        Delivery saved = deliveryRepository.save(delivery);
+        activeDeliveryRegistry.updateAfterCommit(List.of(saved));
+        return saved;
     }
 
     /**
@@ -75,14 +222,87 @@ public class DeliveryService {
         order.setStatus(Order.OrderStatus.DELIVERED);
         order.setActualDeliveryTime(LocalDateTime.now());
         orderRepository.save(order);
+        orderTrackingService.publishStatusAfterCommit(order);
+
+        // Learn prep and travel times for future estimates
+        deliveryTimeEstimator.record(order.getRestaurantId(), order.getOrderedAt(),
+                delivery.getPickedUpAt(), delivery.getDeliveredAt());
 
-        return deliveryRepository.save(delivery);
+        Delivery saved = deliveryRepository.save(delivery);
+        activeDeliveryRegistry.updateAfterCommit(List.of(saved));
+        return saved;
     }
 
     /**
-     * Get deliveries for partner
+     * Accept a batch of GPS pings from the current delivery partner
+     * Returns the number of pings accepted, the rest were dropped under overload
      */
-    public List<Delivery> getPartnerDeliveries(Long deliveryPartnerId) {
-        return deliveryRepository.findByDeliveryPartnerId(deliveryPartnerId);
+    public int reportLocations(LocationBatchRequest request) {
+        User partner = currentUserResolver.getCurrentUser();
+
+        long now = System.currentTimeMillis();
+        int accepted = 0;
+        for (LocationBatchRequest.LocationPing ping : request.getPings()) {
+            long timestamp = ping.getTimestamp() == null || ping.getTimestamp() > now + MAX_CLOCK_SKEW_MILLIS
+                    ? now
+                    : ping.getTimestamp();
+            if (partnerLocationStore.offer(partner.getId(), ping.getLatitude(), ping.getLongitude(), timestamp)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Get one page of a partner's delivery history, newest first
+     * The cursor is the nextCursor of the previous page, or null for the first page
+     */
+    public DeliveryHistoryResponse getPartnerHistory(Long deliveryPartnerId, Delivery.DeliveryStatus status,
+            String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        // Fetch one extra row to know whether another page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Delivery> deliveries;
+        if (cursor == null || cursor.isBlank()) {
+            deliveries = deliveryRepository.findPartnerHistory(deliveryPartnerId, status, limit);
+        } else {
+            String[] position = decodeCursor(cursor);
+            deliveries = deliveryRepository.findPartnerHistoryBefore(deliveryPartnerId, status,
+                    LocalDateTime.parse(position[0]), Long.parseLong(position[1]), limit);
+        }
+
+        boolean hasMore = deliveries.size() > pageSize;
+        if (hasMore) {
+            deliveries = deliveries.subList(0, pageSize);
+        }
+        String nextCursor = hasMore ? encodeCursor(deliveries.get(deliveries.size() - 1)) : null;
+        return new DeliveryHistoryResponse(deliveries, nextCursor, hasMore);
+    }
+
+    /**
+     * Get assigned and picked-up deliveries of a partner from memory
+     */
+    public List<ActiveDeliveryResponse> getActiveDeliveries(Long deliveryPartnerId) {
+        return activeDeliveryRegistry.getActiveDeliveries(deliveryPartnerId);
+    }
+
+    private static String encodeCursor(Delivery last) {
+        String position = last.getAssignedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
     }
 }
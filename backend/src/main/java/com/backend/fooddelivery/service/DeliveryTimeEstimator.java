@@ -0,0 +1,215 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.model.RestaurantEtaStats;
+import com.backend.fooddelivery.repository.RestaurantEtaStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivery Time Estimator - Learns prep and travel times per restaurant and time of day
+ *
+ * Each completed delivery feeds an exponentially weighted moving average of prep time
+ * (ordered -> picked up) and travel time (picked up -> delivered), both for the time-of-day
+ * bucket the order was placed in and for the restaurant as a whole. Estimates live in memory
+ * and are flushed to the database periodically.
+ */
+@Service
+public class DeliveryTimeEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryTimeEstimator.class);
+
+    static final int BUCKET_HOURS = 3;
+    static final int BUCKETS = 24 / BUCKET_HOURS;
+    static final int ALL_DAY = -1;
+
+    private static final double ALPHA = 0.2;
+    private static final int MIN_BUCKET_SAMPLES = 3;
+
+    // Ignore obviously broken timestamps (e.g. orders marked delivered days later)
+    private static final double MAX_SAMPLE_MINUTES = 240.0;
+
+    @Autowired
+    private RestaurantEtaStatsRepository etaStatsRepository;
+
+    private final Map<Long, Estimates> estimates = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Load persisted estimates on startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (RestaurantEtaStats row : etaStatsRepository.findAll()) {
+            Estimates e = estimates.computeIfAbsent(row.getRestaurantId(), id -> new Estimates());
+            int slot = row.getTimeBucket() == ALL_DAY ? BUCKETS : row.getTimeBucket();
+            if (slot < 0 || slot > BUCKETS) {
+                continue;
+            }
+            e.prep[slot] = row.getPrepMinutes();
+            e.travel[slot] = row.getTravelMinutes();
+            e.samples[slot] = row.getSamples();
+        }
+        logger.info("Loaded delivery time estimates for {} restaurants", estimates.size());
+    }
+
+    /**
+     * Learn from a completed delivery
+     */
+    public void record(Long restaurantId, LocalDateTime orderedAt, LocalDateTime pickedUpAt,
+            LocalDateTime deliveredAt) {
+        if (restaurantId == null || orderedAt == null || pickedUpAt == null || deliveredAt == null) {
+            return;
+        }
+
+        double prepMinutes = Duration.between(orderedAt, pickedUpAt).toSeconds() / 60.0;
+        double travelMinutes = Duration.between(pickedUpAt, deliveredAt).toSeconds() / 60.0;
+        if (prepMinutes < 0 || travelMinutes < 0
+                || prepMinutes > MAX_SAMPLE_MINUTES || travelMinutes > MAX_SAMPLE_MINUTES) {
+            return;
+        }
+
+        Estimates e = estimates.computeIfAbsent(restaurantId, id -> new Estimates());
+        e.update(bucketOf(orderedAt), prepMinutes, travelMinutes);
+        e.update(BUCKETS, prepMinutes, travelMinutes);
+        dirty.add(restaurantId);
+    }
+
+    /**
+     * Estimated total delivery time in minutes for an order placed now - O(1)
+     */
+    public int estimateMinutes(Long restaurantId, int fallbackMinutes) {
+        return estimateMinutes(restaurantId, LocalDateTime.now(), fallbackMinutes);
+    }
+
+    /**
+     * Estimated total delivery time in minutes for an order placed at the given time - O(1)
+     */
+    public int estimateMinutes(Long restaurantId, LocalDateTime at, int fallbackMinutes) {
+        Estimates e = estimates.get(restaurantId);
+        if (e == null) {
+            return fallbackMinutes;
+        }
+        double minutes = e.total(bucketOf(at));
+        return Double.isNaN(minutes) ? fallbackMinutes : (int) Math.ceil(minutes);
+    }
+
+    /**
+     * Estimated travel time in minutes once an order has been picked up
+     */
+    public double estimateTravelMinutes(Long restaurantId, LocalDateTime orderedAt, double fallbackMinutes) {
+        Estimates e = estimates.get(restaurantId);
+        if (e == null) {
+            return fallbackMinutes;
+        }
+        double minutes = e.travel(bucketOf(orderedAt));
+        return Double.isNaN(minutes) ? fallbackMinutes : minutes;
+    }
+
+    /**
+     * Flush changed estimates to the database
+     */
+    @Scheduled(fixedDelayString = "${eta.persist-interval-ms:300000}", initialDelayString = "${eta.persist-interval-ms:300000}")
+    public void persist() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Long> restaurantIds = new ArrayList<>(dirty);
+        dirty.removeAll(restaurantIds);
+
+        Map<String, RestaurantEtaStats> existing = new HashMap<>();
+        for (RestaurantEtaStats row : etaStatsRepository.findByRestaurantIdIn(restaurantIds)) {
+            existing.put(row.getRestaurantId() + ":" + row.getTimeBucket(), row);
+        }
+
+        List<RestaurantEtaStats> rows = new ArrayList<>();
+        for (Long restaurantId : restaurantIds) {
+            Estimates e = estimates.get(restaurantId);
+            synchronized (e) {
+                for (int slot = 0; slot <= BUCKETS; slot++) {
+                    if (e.samples[slot] == 0) {
+                        continue;
+                    }
+                    int bucket = slot == BUCKETS ? ALL_DAY : slot;
+                    RestaurantEtaStats row = existing.get(restaurantId + ":" + bucket);
+                    if (row == null) {
+                        row = new RestaurantEtaStats();
+                        row.setRestaurantId(restaurantId);
+                        row.setTimeBucket(bucket);
+                    }
+                    row.setPrepMinutes(e.prep[slot]);
+                    row.setTravelMinutes(e.travel[slot]);
+                    row.setSamples(e.samples[slot]);
+                    rows.add(row);
+                }
+            }
+        }
+
+        try {
+            etaStatsRepository.saveAll(rows);
+        } catch (RuntimeException ex) {
+            dirty.addAll(restaurantIds);
+            logger.error("Failed to persist delivery time estimates", ex);
+        }
+    }
+
+    static int bucketOf(LocalDateTime time) {
+        return time.getHour() / BUCKET_HOURS;
+    }
+
+    /**
+     * EWMA state for one restaurant, slots 0..BUCKETS-1 are time-of-day buckets and BUCKETS is all-day
+     */
+    private static class Estimates {
+
+        final double[] prep = new double[BUCKETS + 1];
+        final double[] travel = new double[BUCKETS + 1];
+        final long[] samples = new long[BUCKETS + 1];
+
+        synchronized void update(int slot, double prepMinutes, double travelMinutes) {
+            if (samples[slot] == 0) {
+                prep[slot] = prepMinutes;
+                travel[slot] = travelMinutes;
+            } else {
+                prep[slot] += ALPHA * (prepMinutes - prep[slot]);
+                travel[slot] += ALPHA * (travelMinutes - travel[slot]);
+            }
+            samples[slot]++;
+        }
+
+        synchronized double total(int bucket) {
+            int slot = pick(bucket);
+            return slot < 0 ? Double.NaN : prep[slot] + travel[slot];
+        }
+
+        synchronized double travel(int bucket) {
+            int slot = pick(bucket);
+            return slot < 0 ? Double.NaN : travel[slot];
+        }
+
+        /**
+         * Use the time-of-day bucket once it has enough samples, otherwise the all-day estimate
+         */
+        private int pick(int bucket) {
+            if (samples[bucket] >= MIN_BUCKET_SAMPLES) {
+                return bucket;
+            }
+            return samples[BUCKETS] > 0 ? BUCKETS : -1;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.repository.DeliveryRepository;
+import com.backend.fooddelivery.repository.OrderRepository;
+import com.backend.fooddelivery.util.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dispatch Engine - Periodically pairs READY_FOR_PICKUP orders with nearby free partners
+ *
+ * Each tick stacks the unassigned orders into trips, snapshots free partner positions into a
+ * uniform grid, collects the nearest candidates for every trip's first pickup, assigns
+ * greedily by pickup distance and then improves the result with pairwise swaps.
+ * Assignments are committed in one transaction.
+ */
+@Service
+public class DispatchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DispatchEngine.class);
+
+    // Grid cell size in degrees (~1.1 km of latitude)
+    private static final double CELL_SIZE = 0.01;
+    private static final int CANDIDATES_PER_TRIP = 5;
+    private static final int MAX_SWAP_PASSES = 3;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private PartnerLocationStore partnerLocationStore;
+
+    @Autowired
+    private TripPlanner tripPlanner;
+
+    @Value("${dispatch.enabled:true}")
+    private boolean dispatchEnabled;
+
+    @Value("${dispatch.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${dispatch.max-pickup-distance-km:8.0}")
+    private double maxPickupDistanceKm;
+
+    @Value("${dispatch.position-max-age-ms:120000}")
+    private long positionMaxAgeMillis;
+
+    /**
+     * Run one dispatch round
+     */
+    @Scheduled(fixedDelayString = "${dispatch.interval-ms:5000}", initialDelayString = "${dispatch.interval-ms:5000}")
+    public void dispatch() {
+        if (!dispatchEnabled) {
+            return;
+        }
+
+        // Each row is [orderId, pickupLatitude, pickupLongitude, dropoffLatitude, dropoffLongitude]
+        List<Object[]> orders = orderRepository.findUnassignedReadyOrders(PageRequest.of(0, batchSize));
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        PartnerLocationStore.Snapshot partners = partnerLocationStore.snapshot(positionMaxAgeMillis);
+        Set<Long> busy = new HashSet<>(deliveryRepository.findBusyPartnerIds());
+        PartnerGrid grid = new PartnerGrid(partners, busy);
+        if (grid.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<TripPlanner.Trip> trips = tripPlanner.plan(orders);
+        Map<TripPlanner.Trip, Long> assignments = match(trips, grid);
+        if (assignments.isEmpty()) {
+            return;
+        }
+
+        int committed = deliveryService.assignTrips(assignments);
+        logger.info("Dispatched {} of {} ready orders on {} trips to {} free partners in {} ms",
+                committed, orders.size(), assignments.size(), grid.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Match trips to partners, returns trip -> partnerId
+     */
+    private Map<TripPlanner.Trip, Long> match(List<TripPlanner.Trip> trips, PartnerGrid grid) {
+        int n = trips.size();
+        int[][] candidates = new int[n][];
+        double[][] costs = new double[n][];
+
+        for (int i = 0; i < n; i++) {
+            TripPlanner.Trip trip = trips.get(i);
+            grid.nearest(trip.pickupLatitude, trip.pickupLongitude, CANDIDATES_PER_TRIP, maxPickupDistanceKm);
+            candidates[i] = Arrays.copyOf(grid.resultPartners, grid.resultSize);
+            costs[i] = Arrays.copyOf(grid.resultDistances, grid.resultSize);
+        }
+
+        // Greedy: cheapest (order, partner) edges first
+        int edgeCount = 0;
+        for (int[] c : candidates) {
+            edgeCount += c.length;
+        }
+        long[] edges = new long[edgeCount];
+        double[] edgeCosts = new double[edgeCount];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < candidates[i].length; k++) {
+                edges[e] = ((long) i << 32) | k;
+                edgeCosts[e] = costs[i][k];
+                e++;
+            }
+        }
+        Integer[] order = new Integer[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(edgeCosts[a], edgeCosts[b]));
+
+        int[] partnerOf = new int[n];
+        Arrays.fill(partnerOf, -1);
+        int[] orderOfPartner = new int[grid.size()];
+        Arrays.fill(orderOfPartner, -1);
+        for (int idx : order) {
+            int i = (int) (edges[idx] >>> 32);
+            int partner = candidates[i][(int) edges[idx]];
+            if (partnerOf[i] < 0 && orderOfPartner[partner] < 0) {
+                partnerOf[i] = partner;
+                orderOfPartner[partner] = i;
+            }
+        }
+
+        improveBySwaps(n, candidates, costs, partnerOf, orderOfPartner);
+
+        Map<TripPlanner.Trip, Long> assignments = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (partnerOf[i] >= 0) {
+                assignments.put(trips.get(i), grid.partnerIds[partnerOf[i]]);
+            }
+        }
+        return assignments;
+    }
+
+    /**
+     * Local improvement: swap partners between two trips, or move a trip to a free
+     * candidate, whenever it lowers the total pickup distance
+     */
+    private void improveBySwaps(int n, int[][] candidates, double[][] costs, int[] partnerOf, int[] orderOfPartner) {
+        for (int pass = 0; pass < MAX_SWAP_PASSES; pass++) {
+            boolean improved = false;
+            for (int a = 0; a < n; a++) {
+                for (int k = 0; k < candidates[a].length; k++) {
+                    int q = candidates[a][k];
+                    int p = partnerOf[a];
+                    if (q == p) {
+                        continue;
+                    }
+                    double current = p >= 0 ? costOf(candidates, costs, a, p) : Double.MAX_VALUE;
+                    int b = orderOfPartner[q];
+
+                    if (b < 0) {
+                        // Candidate is free: move if closer
+                        if (costs[a][k] < current) {
+                            if (p >= 0) {
+                                orderOfPartner[p] = -1;
+                            }
+                            partnerOf[a] = q;
+                            orderOfPartner[q] = a;
+                            improved = true;
+                        }
+                        continue;
+                    }
+
+                    if (p < 0) {
+                        continue;
+                    }
+                    double bWithP = costOf(candidates, costs, b, p);
+                    if (bWithP == Double.MAX_VALUE) {
+                        continue;
+                    }
+                    double before = current + costOf(candidates, costs, b, q);
+                    double after = costs[a][k] + bWithP;
+                    if (after + 1e-9 < before) {
+                        partnerOf[a] = q;
+                        orderOfPartner[q] = a;
+                        partnerOf[b] = p;
+                        orderOfPartner[p] = b;
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                return;
+            }
+        }
+    }
+
+    private static double costOf(int[][] candidates, double[][] costs, int order, int partner) {
+        int[] c = candidates[order];
+        for (int k = 0; k < c.length; k++) {
+            if (c[k] == partner) {
+                return costs[order][k];
+            }
+        }
+        return Double.MAX_VALUE;
+    }
+
+    /**
+     * Uniform grid over free partner positions
+     */
+    private static class PartnerGrid {
+
+        final long[] partnerIds;
+        final double[] latitudes;
+        final double[] longitudes;
+        private final Map<Long, int[]> cells = new HashMap<>();
+
+        // Reusable query result buffers
+        final int[] resultPartners = new int[CANDIDATES_PER_TRIP];
+        final double[] resultDistances = new double[CANDIDATES_PER_TRIP];
+        int resultSize;
+
+        PartnerGrid(PartnerLocationStore.Snapshot snapshot, Set<Long> busy) {
+            int free = 0;
+            long[] ids = new long[snapshot.size];
+            double[] lats = new double[snapshot.size];
+            double[] lons = new double[snapshot.size];
+            for (int i = 0; i < snapshot.size; i++) {
+                if (busy.contains(snapshot.partnerIds[i])) {
+                    continue;
+                }
+                ids[free] = snapshot.partnerIds[i];
+                lats[free] = snapshot.latitudes[i];
+                lons[free] = snapshot.longitudes[i];
+                free++;
+            }
+            this.partnerIds = Arrays.copyOf(ids, free);
+            this.latitudes = Arrays.copyOf(lats, free);
+            this.longitudes = Arrays.copyOf(lons, free);
+
+            Map<Long, int[]> building = new HashMap<>();
+            Map<Long, Integer> counts = new HashMap<>();
+            for (int i = 0; i < free; i++) {
+                counts.merge(cellKey(cellOf(latitudes[i]), cellOf(longitudes[i])), 1, Integer::sum);
+            }
+            counts.forEach((key, count) -> building.put(key, new int[count + 1])); // slot 0 holds fill count
+            for (int i = 0; i < free; i++) {
+                int[] cell = building.get(cellKey(cellOf(latitudes[i]), cellOf(longitudes[i])));
+                cell[++cell[0]] = i;
+            }
+            cells.putAll(building);
+        }
+
+        boolean isEmpty() {
+            return partnerIds.length == 0;
+        }
+
+        int size() {
+            return partnerIds.length;
+        }
+
+        /**
+         * Find up to k nearest partners within maxDistanceKm, searching rings of cells outward
+         */
+        void nearest(double lat, double lon, int k, double maxDistanceKm) {
+            resultSize = 0;
+            int row = cellOf(lat);
+            int col = cellOf(lon);
+            // A cell is at least ~1.1 km * cos(lat) wide, so this many rings cover the search radius
+            double cellKm = 111.0 * CELL_SIZE * Math.max(Math.cos(Math.toRadians(lat)), 0.1);
+            int maxRing = (int) Math.ceil(maxDistanceKm / cellKm);
+
+            for (int ring = 0; ring <= maxRing; ring++) {
+                for (int r = row - ring; r <= row + ring; r++) {
+                    for (int c = col - ring; c <= col + ring; c++) {
+                        if (Math.abs(r - row) != ring && Math.abs(c - col) != ring) {
+                            continue; // interior cells were scanned by earlier rings
+                        }
+                        int[] cell = cells.get(cellKey(r, c));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (int j = 1; j <= cell[0]; j++) {
+                            int p = cell[j];
+                            double d = GeoUtils.distanceKm(lat, lon, latitudes[p], longitudes[p]);
+                            if (d <= maxDistanceKm) {
+                                insert(p, d, k);
+                            }
+                        }
+                    }
+                }
+                // Anything in further rings is at least ring * cellKm away
+                if (resultSize == k && resultDistances[k - 1] <= ring * cellKm) {
+                    return;
+                }
+            }
+        }
+
+        private void insert(int partner, double distance, int k) {
+            if (resultSize == k && distance >= resultDistances[k - 1]) {
+                return;
+            }
+            int pos = resultSize < k ? resultSize++ : k - 1;
+            while (pos > 0 && resultDistances[pos - 1] > distance) {
+                resultDistances[pos] = resultDistances[pos - 1];
+                resultPartners[pos] = resultPartners[pos - 1];
+                pos--;
+            }
+            resultDistances[pos] = distance;
+            resultPartners[pos] = partner;
+        }
+
+        private static int cellOf(double degrees) {
+            return (int) Math.floor(degrees / CELL_SIZE);
+        }
+
+        private static long cellKey(int row, int col) {
+            return ((long) row << 32) | (col & 0xffffffffL);
+        }
+    }
+}
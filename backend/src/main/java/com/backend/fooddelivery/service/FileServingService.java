@@ -0,0 +1,307 @@
+package com.backend.fooddelivery.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * File Serving Service - Serves uploaded files under /uploads/**
+ *
+ * Bodies go out through Tomcat's sendfile when the connector supports it, otherwise through
+ * FileChannel.transferTo, so file data is never copied through the heap. Supports single byte
+ * ranges, strong ETags with If-None-Match / If-Range, ?size= image variants and pre-compressed
+ * .br/.gz siblings for compressible types. Content-addressed blobs never change under their
+ * name and are cached as immutable, except when another file stands in for a requested variant
+ * that doesn't exist (yet), which is only cached briefly.
+ */
+@Service
+public class FileServingService {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // {sha256}.{ext} or {sha256}.{size}.{ext}
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("^([0-9a-f]{64})(?:\\.(thumb|medium|large))?(?:\\.[a-z0-9]+)?$");
+    private static final Pattern RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    @Value("${file.serving.cache-max-age:3600}")
+    private long cacheMaxAge;
+
+    @Value("${file.serving.fallback-max-age:60}")
+    private long fallbackMaxAge;
+
+    @Value("${file.serving.sendfile-threshold:49152}")
+    private long sendfileThreshold;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Serve the file at a path relative to the upload directory
+     */
+    public void serve(String relativePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path original = resolve(relativePath);
+        if (original == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ImageVariantService.Size requested = ImageVariantService.Size.fromParameter(request.getParameter("size"));
+        Path file = selectVariant(original, requested);
+        boolean fallback = requested != null && !file.equals(variantOf(original, requested));
+        String filename = file.getFileName().toString();
+        MediaType mediaType = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        // Pick a pre-compressed representation the client accepts
+        String encoding = null;
+        Path body = file;
+        if (isCompressible(mediaType)) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String accepted = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            for (String candidate : new String[] {"br", "gzip"}) {
+                Path compressed = file.resolveSibling(filename + ("br".equals(candidate) ? ".br" : ".gz"));
+                if (accepts(accepted, candidate) && Files.isRegularFile(compressed)) {
+                    encoding = candidate;
+                    body = compressed;
+                    break;
+                }
+            }
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(body, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Matcher contentAddressed = CONTENT_ADDRESSED.matcher(filename);
+        String etag = etag(contentAddressed, length, lastModified, encoding);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, fallback ? "public, max-age=" + fallbackMaxAge
+                : contentAddressed.matches() ? IMMUTABLE : "public, max-age=" + cacheMaxAge);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(mediaType.toString());
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+
+        long start = 0;
+        long end = length; // exclusive
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && rangeStillValid(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start);
+
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (end - start >= sendfileThreshold && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file with sendfile once the request returns
+            request.setAttribute(SENDFILE_FILENAME, body.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        transfer(body, start, end, response);
+    }
+
+    /**
+     * Resolve a request path to a file inside the upload directory, null if there is none
+     */
+    private Path resolve(String relativePath) {
+        Path path;
+        try {
+            String decoded = URLDecoder.decode(relativePath.replace("+", "%2B"), StandardCharsets.UTF_8);
+            path = root.resolve(decoded).normalize();
+        } catch (IllegalArgumentException e) {
+            return null; // malformed escapes or characters the file system can't represent
+        }
+        if (!path.startsWith(root) || path.equals(root)
+                || path.getFileName().toString().startsWith(".") || !Files.isRegularFile(path)) {
+            return null;
+        }
+        return path;
+    }
+
+    /**
+     * The requested variant, or the next larger one that exists, or the original; whichever of
+     * those is found first, unless the original is smaller in bytes
+     */
+    private Path selectVariant(Path original, ImageVariantService.Size requested) throws IOException {
+        if (requested == null) {
+            return original;
+        }
+        for (ImageVariantService.Size size : ImageVariantService.Size.values()) {
+            if (size.compareTo(requested) < 0) {
+                continue;
+            }
+            Path variant = variantOf(original, size);
+            if (Files.isRegularFile(variant)) {
+                return Files.size(variant) < Files.size(original) ? variant : original;
+            }
+        }
+        return original;
+    }
+
+    private Path variantOf(Path original, ImageVariantService.Size size) {
+        String relative = root.relativize(original).toString().replace('\\', '/');
+        return root.resolve(ImageVariantService.variantPath(relative, size));
+    }
+
+    private void transfer(Path file, long start, long end, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    private static String etag(Matcher contentAddressed, long length, long lastModified, String encoding) {
+        String tag;
+        if (contentAddressed.matches()) {
+            tag = contentAddressed.group(2) == null
+                    ? contentAddressed.group(1)
+                    : contentAddressed.group(1) + "-" + contentAddressed.group(2);
+        } else {
+            tag = Long.toHexString(length) + "-" + Long.toHexString(lastModified);
+        }
+        // Each encoding is a different representation and needs its own strong ETag
+        return "\"" + (encoding == null ? tag : tag + "-" + encoding) + "\"";
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Whether If-Range, if sent, still matches the current representation
+     */
+    private static boolean rangeStillValid(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    /**
+     * Parse a Range header: {start, end exclusive}, an empty array to send the whole file
+     * (unsupported or multiple ranges), or null if the range can't be satisfied
+     */
+    private static long[] parseRange(String header, long length) {
+        Matcher matcher = RANGE.matcher(header.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return new long[0];
+        }
+        try {
+            if (matcher.group(1).isEmpty()) {
+                // Suffix range: the last n bytes
+                long suffix = Long.parseLong(matcher.group(2));
+                return suffix == 0 ? null : new long[] {Math.max(0, length - suffix), length};
+            }
+            long start = Long.parseLong(matcher.group(1));
+            long last = matcher.group(2).isEmpty() ? length - 1 : Math.min(Long.parseLong(matcher.group(2)), length - 1);
+            if (start >= length || last < start) {
+                return null;
+            }
+            return new long[] {start, last + 1};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equals(encoding)) {
+                return tokens.length == 1 || !tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCompressible(MediaType mediaType) {
+        return "text".equals(mediaType.getType())
+                || mediaType.getSubtype().endsWith("+xml")
+                || mediaType.getSubtype().endsWith("json")
+                || mediaType.getSubtype().equals("javascript");
+    }
+}
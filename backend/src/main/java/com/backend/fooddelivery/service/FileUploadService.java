@@ -1,69 +1,171 @@
 package com.backend.fooddelivery.service;
 
 import com.backend.fooddelivery.exception.BadRequestException;
+import com.backend.fooddelivery.model.StoredFile;
+import com.backend.fooddelivery.repository.StoredFileRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * File Upload Service - Handles file uploads and storage
+ *
+ * Storage is content-addressed: each upload is hashed while it is written to a temp file and
+ * kept once as blobs/{sha256}.{ext}, with a reference count per blob, so identical uploads share
+ * one file. Deleting a file drops a reference and removes the blob with its last one. Resized
+ * variants of each new blob are generated in the background by the ImageVariantService.
+ *
+ * References are added in their own transaction, so a duplicate-key race on a new blob can be
+ * retried, and are given back if the caller's transaction rolls back. Releasing a reference is
+ * deferred until the caller's transaction commits and also runs on its own, so the caller never
+ * holds a blob row lock that a re-upload of the same content would wait on. Storing a blob and
+ * removing it from disk take a per-hash lock, so a blob stored again while it is being released
+ * is never deleted from under its new row. Files uploaded through the generic endpoint are not
+ * shared: each is kept under its own name in the requested folder and deleted by path.
  */
 @Service
 public class FileUploadService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileUploadService.class);
+
+    public static final String BLOB_FOLDER = "blobs";
+
+    // blobs/{hash}.{ext}
+    private static final Pattern BLOB_PATH = Pattern.compile("^" + BLOB_FOLDER + "/([0-9a-f]{64})(?:\\.[a-z0-9]+)?$");
+
+    private static final int BLOB_LOCK_STRIPES = 64;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Value("${file.upload-dir}")
     private String uploadDir;
 
     @Value("${file.max-size}")
     private long maxFileSize;
 
+    // Independent of the caller's transaction, which a failed insert would otherwise abort
+    private TransactionTemplate newTransactionTemplate;
+
+    // Serializes storing a blob with removing it from disk, by hash
+    private final ReentrantLock[] blobLocks = new ReentrantLock[BLOB_LOCK_STRIPES];
+
+    @PostConstruct
+    public void init() {
+        newTransactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < blobLocks.length; i++) {
+            blobLocks[i] = new ReentrantLock();
+        }
+    }
+
     /**
-     * Upload file and return file path
+     * Upload a file referenced by a record and return its shared blob path
      */
     public String uploadFile(MultipartFile file, String folder) {
-        // Validate file
-        if (file.isEmpty()) {
-            throw new BadRequestException("File is empty");
-        }
+        String contentType = validate(file);
 
-        // Check file size
-        if (file.getSize() > maxFileSize) {
-            throw new BadRequestException("File size exceeds maximum limit of " + (maxFileSize / 1024 / 1024) + "MB");
+        Path temp = null;
+        try {
+            // Create blob directory if it doesn't exist
+            Path blobPath = Paths.get(uploadDir, BLOB_FOLDER);
+            if (!Files.exists(blobPath)) {
+                Files.createDirectories(blobPath);
+            }
+
+            // Write to a temp file, hashing the content on the way
+            temp = Files.createTempFile(blobPath, ".upload-", ".tmp");
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String relativePath = BLOB_FOLDER + "/" + hash + extension(contentType, file.getOriginalFilename());
+
+            StoredFile stored = store(hash, relativePath, contentType, temp);
+            releaseOnRollback(stored.getPath());
+            if (stored.getRefCount() == 1) {
+                imageVariantService.generateAsync(stored.getPath());
+            }
+
+            // Return relative path
+            return stored.getPath();
+
+        } catch (IOException | UncheckedIOException e) {
+            throw new BadRequestException("Failed to upload file: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete upload temp file {}: {}", temp, e.getMessage());
+                }
+            }
         }
+    }
 
-        // Validate file type (images only)
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new BadRequestException("Only image files are allowed");
+    /**
+     * Upload a file that no record owns and return its path, it is deleted by that path
+     */
+    public String uploadUnmanagedFile(MultipartFile file, String folder) {
+        String contentType = validate(file);
+
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path uploadPath = root.resolve(folder).normalize();
+        if (!uploadPath.startsWith(root) || uploadPath.equals(root) || uploadPath.startsWith(root.resolve(BLOB_FOLDER))) {
+            throw new BadRequestException("Invalid folder");
         }
 
         try {
-            // Create upload directory if it doesn't exist
-            Path uploadPath = Paths.get(uploadDir, folder);
+            // Create directory if it doesn't exist
             if (!Files.exists(uploadPath)) {
                 Files.createDirectories(uploadPath);
             }
 
             // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = originalFilename != null && originalFilename.contains(".")
-                    ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                    : "";
-            String filename = UUID.randomUUID().toString() + fileExtension;
+            String filename = UUID.randomUUID() + extension(contentType, file.getOriginalFilename());
+            Path target = uploadPath.resolve(filename);
+            Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
 
-            // Save file
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Return relative path
-            return folder + "/" + filename;
+            String relativePath = root.relativize(target).toString().replace('\\', '/');
+            imageVariantService.generateAsync(relativePath);
+            return relativePath;
 
         } catch (IOException e) {
             throw new BadRequestException("Failed to upload file: " + e.getMessage());
@@ -71,19 +173,211 @@ public class FileUploadService {
     }
 
     /**
-     * Delete file
+     * Release a file referenced by a record (profile picture, logo, menu item image)
+     * Inside a transaction the reference is only released once that transaction commits
      */
     public void deleteFile(String filePath) {
         if (filePath == null || filePath.isEmpty()) {
             return;
         }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(filePath);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                newTransactionTemplate.executeWithoutResult(tx -> release(filePath));
+            }
+        });
+    }
+
+    /**
+     * Delete a file uploaded outside content addressing by path
+     * Blobs are shared and owned by the records that reference them, so they are only ever
+     * released through those records
+     */
+    public void deleteUnmanagedFile(String filePath) {
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path target = root.resolve(filePath).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new BadRequestException("Invalid file path");
+        }
+        if (target.startsWith(root.resolve(BLOB_FOLDER))) {
+            throw new BadRequestException("Shared files are removed together with the record that uses them");
+        }
+        deleteFile(root.relativize(target).toString());
+    }
+
+    /**
+     * Drop a reference now, removing the blob from disk after commit if it was the last one
+     */
+    private void release(String filePath) {
+        Matcher blob = BLOB_PATH.matcher(filePath);
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (!blob.matches()) {
+                // Uploaded before content addressing, owned by a single reference
+                deleteFromDiskAfterCommit(filePath, null);
+                return;
+            }
+
+            String hash = blob.group(1);
+            if (storedFileRepository.removeReference(hash) == 0) {
+                return;
+            }
+            storedFileRepository.findById(hash).ifPresent(stored -> {
+                if (storedFileRepository.deleteUnreferenced(hash) > 0) {
+                    deleteFromDiskAfterCommit(stored.getPath(), hash);
+                }
+            });
+        });
+    }
+
+    /**
+     * Add a reference to the blob with this hash, moving the temp file into place if it is new
+     */
+    private StoredFile store(String hash, String relativePath, String contentType, Path temp) throws IOException {
+        long size = Files.size(temp);
+        // Held until the insert commits, so a release of the same blob can't delete the file meanwhile
+        ReentrantLock blobLock = blobLock(hash);
+        blobLock.lock();
+        try {
+            return storeLocked(hash, relativePath, contentType, temp, size);
+        } finally {
+            blobLock.unlock();
+        }
+    }
+
+    private StoredFile storeLocked(String hash, String relativePath, String contentType, Path temp, long size) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return newTransactionTemplate.execute(tx -> {
+                    if (storedFileRepository.addReference(hash) > 0) {
+                        StoredFile existing = storedFileRepository.findById(hash).orElseThrow();
+                        Path existingPath = Paths.get(uploadDir, existing.getPath());
+                        if (!Files.exists(existingPath)) {
+                            moveIntoPlace(temp, existingPath); // restore a blob lost from disk
+                        }
+                        return existing;
+                    }
+                    moveIntoPlace(temp, Paths.get(uploadDir, relativePath));
+                    return storedFileRepository.save(new StoredFile(hash, relativePath, contentType, size, 1, null));
+                });
+            } catch (DataIntegrityViolationException e) {
+                // The same content was stored concurrently, reference that one instead
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Give the reference back if the caller's transaction rolls back, the record never points at it
+     */
+    private void releaseOnRollback(String filePath) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    newTransactionTemplate.executeWithoutResult(tx -> release(filePath));
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove a file from disk once the surrounding transaction commits, so a rollback keeps it
+     * A blob is kept if the same content was stored again in the meantime
+     */
+    private void deleteFromDiskAfterCommit(String filePath, String hash) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (hash == null) {
+                    deleteFromDisk(filePath);
+                    return;
+                }
+                ReentrantLock blobLock = blobLock(hash);
+                blobLock.lock();
+                try {
+                    if (!storedFileRepository.existsById(hash)) {
+                        deleteFromDisk(filePath);
+                    }
+                } finally {
+                    blobLock.unlock();
+                }
+            }
+        });
+    }
 
+    private ReentrantLock blobLock(String hash) {
+        return blobLocks[Math.floorMod(hash.hashCode(), blobLocks.length)];
+    }
+
+    private void deleteFromDisk(String filePath) {
         try {
             Path path = Paths.get(uploadDir, filePath);
             Files.deleteIfExists(path);
+            imageVariantService.deleteVariants(filePath);
         } catch (IOException e) {
             // Log error but don't throw exception
-            System.err.println("Failed to delete file: " + e.getMessage());
+            logger.warn("Failed to delete file: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Check an upload is a non-empty image within the size limit, returns its content type
+     */
+    private String validate(MultipartFile file) {
+        // Validate file
+        if (file.isEmpty()) {
+            throw new BadRequestException("File is empty");
+        }
+
+        // Check file size
+        if (file.getSize() > maxFileSize) {
+            throw new BadRequestException("File size exceeds maximum limit of " + (maxFileSize / 1024 / 1024) + "MB");
+        }
+
+        // Validate file type (images only)
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BadRequestException("Only image files are allowed");
+        }
+        return contentType;
+    }
+
+    private static String extension(String contentType, String originalFilename) {
+        return switch (contentType.toLowerCase(Locale.ROOT)) {
+            case "image/jpeg", "image/jpg" -> ".jpg";
+            case "image/png" -> ".png";
+            case "image/gif" -> ".gif";
+            case "image/webp" -> ".webp";
+            case "image/svg+xml" -> ".svg";
+            case "image/bmp" -> ".bmp";
+            default -> originalFilename != null && originalFilename.matches(".*\\.[A-Za-z0-9]{1,5}$")
+                    ? originalFilename.substring(originalFilename.lastIndexOf('.')).toLowerCase(Locale.ROOT)
+                    : "";
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 }
@@ -0,0 +1,321 @@
+package com.backend.fooddelivery.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Image Variant Service - Generates resized copies of uploaded images in the background
+ *
+ * Each upload gets thumb, medium and large variants next to the original, scaled down to fit
+ * the variant's bounding box and re-encoded (PNG for images that may have transparency, JPEG
+ * otherwise). SVGs get a gzip copy instead, served to clients that accept it. Work runs on a
+ * small fixed pool with a bounded queue; when the queue is full the variants are skipped and
+ * the original is served instead. Dimensions are read from the header before decoding: images
+ * above max-pixels get no variants, and large ones are decoded subsampled so the decoded raster
+ * stays close to the largest variant instead of the full upload.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    /**
+     * Variant sizes, by longest edge in pixels
+     */
+    public enum Size {
+        THUMB(128),
+        MEDIUM(480),
+        LARGE(1080);
+
+        private final int maxEdge;
+
+        Size(int maxEdge) {
+            this.maxEdge = maxEdge;
+        }
+
+        public int getMaxEdge() {
+            return maxEdge;
+        }
+
+        /**
+         * Parse a ?size= value, null if it names no variant
+         */
+        public static Size fromParameter(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (Size size : values()) {
+                if (size.name().equalsIgnoreCase(value)) {
+                    return size;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    @Value("${file.variants.threads:0}")
+    private int threads;
+
+    @Value("${file.variants.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${file.variants.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${file.variants.max-pixels:40000000}")
+    private long maxPixels;
+
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void init() {
+        ImageIO.setUseCache(false); // decode in memory instead of through temp files
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Queue variant generation for an uploaded image, given its path relative to the upload directory
+     */
+    public void generateAsync(String filePath) {
+        try {
+            pool.execute(() -> {
+                try {
+                    generate(filePath);
+                } catch (RuntimeException | Error e) {
+                    // Decoders can fail on hostile input in unexpected ways; keep the worker alive
+                    logger.error("Failed to generate variants for {}", filePath, e);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Image variant queue full, skipping variants for {}", filePath);
+        }
+    }
+
+    /**
+     * Path of a variant relative to the upload directory
+     */
+    public static String variantPath(String filePath, Size size) {
+        int dot = filePath.lastIndexOf('.');
+        int slash = filePath.lastIndexOf('/');
+        String base = dot > slash ? filePath.substring(0, dot) : filePath;
+        String extension = dot > slash ? filePath.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return base + "." + size.name().toLowerCase(Locale.ROOT) + "." + variantFormat(extension);
+    }
+
+    /**
+     * Delete all variants of an image
+     */
+    public void deleteVariants(String filePath) {
+        List<String> variants = new ArrayList<>(List.of(filePath + ".gz", filePath + ".br"));
+        for (Size size : Size.values()) {
+            variants.add(variantPath(filePath, size));
+        }
+        for (String variant : variants) {
+            try {
+                Files.deleteIfExists(Paths.get(uploadDir, variant));
+            } catch (IOException e) {
+                logger.warn("Failed to delete variant {}: {}", variant, e.getMessage());
+            }
+        }
+    }
+
+    private void generate(String filePath) {
+        Path original = Paths.get(uploadDir, filePath);
+        if (filePath.toLowerCase(Locale.ROOT).endsWith(".svg")) {
+            precompress(original);
+            return;
+        }
+
+        BufferedImage image;
+        try {
+            image = decode(original, filePath);
+        } catch (IOException e) {
+            logger.warn("Cannot read image {}: {}", filePath, e.getMessage());
+            return;
+        }
+        if (image == null) {
+            return;
+        }
+
+        for (Size size : Size.values()) {
+            // Never upscale, a request for a larger variant than exists gets the original
+            if (Math.max(image.getWidth(), image.getHeight()) <= size.getMaxEdge()) {
+                break;
+            }
+            Path target = Paths.get(uploadDir, variantPath(filePath, size));
+            if (Files.exists(target)) {
+                continue;
+            }
+            try {
+                write(resize(image, size.getMaxEdge()), target);
+            } catch (IOException e) {
+                logger.warn("Failed to write {} variant of {}: {}", size, filePath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Decode an image for resizing, or return null if no reader handles it or it is too large
+     */
+    private BufferedImage decode(Path original, String filePath) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                logger.debug("No ImageIO reader for {}, serving the original only", filePath);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Image {} is {}x{}, above the {} pixel limit, serving the original only",
+                            filePath, width, height, maxPixels);
+                    return null;
+                }
+
+                // Keep at least twice the largest variant's edge, the halving resize does the rest
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * Size.LARGE.getMaxEdge()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Write a gzip copy next to a compressible file, kept only if it is actually smaller
+     */
+    private void precompress(Path original) {
+        Path target = original.resolveSibling(original.getFileName() + ".gz");
+        try {
+            Path temp = Files.createTempFile(original.getParent(), ".variant-", ".tmp");
+            try {
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp)) {
+                    {
+                        def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }) {
+                    Files.copy(original, out);
+                }
+                if (Files.size(temp) < Files.size(original)) {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to pre-compress {}: {}", original, e.getMessage());
+        }
+    }
+
+    private BufferedImage resize(BufferedImage image, int maxEdge) {
+        double scale = (double) maxEdge / Math.max(image.getWidth(), image.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        // Halve repeatedly before the last step, single-step bilinear scaling aliases badly
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, Path target) throws IOException {
+        String format = target.getFileName().toString().endsWith(".png") ? "png" : "jpg";
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if ("jpg".equals(format)) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(jpegQuality);
+                    param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            // Readers must never see a half-written variant
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String variantFormat(String extension) {
+        return switch (extension) {
+            case "png", "gif", "bmp", "webp", "svg" -> "png";
+            default -> "jpg";
+        };
+    }
+}
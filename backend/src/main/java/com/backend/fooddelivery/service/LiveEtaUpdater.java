@@ -0,0 +1,160 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.dto.response.ActiveDeliveryResponse;
+import com.backend.fooddelivery.repository.OrderRepository;
+import com.backend.fooddelivery.util.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live ETA Updater - Recomputes the remaining time of every picked-up delivery each tick
+ *
+ * For each partner the remaining route runs from the latest reported position through the
+ * drop-offs of the orders on board in stop order. When no fresh position or drop-off
+ * coordinates are known, the learned travel time of the restaurant minus the time already
+ * spent on the road is used instead. An order's ETA is only stored and pushed to trackers
+ * when it moves by at least the threshold, and all changes of a tick are written in one batch.
+ */
+@Service
+public class LiveEtaUpdater {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveEtaUpdater.class);
+
+    // Used when nothing has been learned about the restaurant yet
+    private static final double DEFAULT_TRAVEL_MINUTES = 20.0;
+
+    private static final String UPDATE_ETA = "UPDATE orders SET estimated_delivery_time = ? WHERE id = ?";
+
+    @Autowired
+    private ActiveDeliveryRegistry activeDeliveryRegistry;
+
+    @Autowired
+    private PartnerLocationStore partnerLocationStore;
+
+    @Autowired
+    private DeliveryTimeEstimator deliveryTimeEstimator;
+
+    @Autowired
+    private OrderTrackingService orderTrackingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${eta.live.threshold-minutes:2}")
+    private long thresholdMinutes;
+
+    @Value("${eta.live.speed-kmph:20.0}")
+    private double speedKmph;
+
+    @Value("${eta.live.stop-minutes:2.0}")
+    private double stopMinutes;
+
+    @Value("${eta.live.position-max-age-ms:120000}")
+    private long positionMaxAgeMillis;
+
+    // Order ID -> ETA last stored and pushed
+    private final Map<Long, LocalDateTime> published = new ConcurrentHashMap<>();
+
+    /**
+     * Recompute ETAs of all in-flight deliveries
+     */
+    @Scheduled(fixedDelayString = "${eta.live.interval-ms:15000}", initialDelayString = "${eta.live.interval-ms:15000}")
+    public void tick() {
+        Map<Long, List<ActiveDeliveryResponse>> inFlight = activeDeliveryRegistry.getPickedUpByPartner();
+        if (inFlight.isEmpty()) {
+            published.clear();
+            return;
+        }
+
+        List<Long> orderIds = new ArrayList<>();
+        inFlight.values().forEach(deliveries -> deliveries.forEach(d -> orderIds.add(d.getOrderId())));
+        Map<Long, Object[]> orders = new HashMap<>();
+        for (Object[] row : orderRepository.findEtaInputs(orderIds)) {
+            orders.put((Long) row[0], row);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long nowMillis = System.currentTimeMillis();
+        List<Object[]> changes = new ArrayList<>();
+
+        inFlight.forEach((partnerId, deliveries) -> {
+            PartnerLocationStore.Position position = partnerLocationStore.get(partnerId);
+            boolean positionFresh = position != null && nowMillis - position.timestampMillis() <= positionMaxAgeMillis;
+            double lat = positionFresh ? position.latitude() : Double.NaN;
+            double lon = positionFresh ? position.longitude() : Double.NaN;
+            double minutesAhead = 0;
+
+            for (ActiveDeliveryResponse delivery : deliveries) {
+                Object[] order = orders.get(delivery.getOrderId());
+                if (order == null) {
+                    continue;
+                }
+                Double dropLat = (Double) order[3];
+                Double dropLon = (Double) order[4];
+
+                double remaining;
+                if (!Double.isNaN(lat) && dropLat != null && dropLon != null) {
+                    double km = GeoUtils.distanceKm(lat, lon, dropLat, dropLon) * GeoUtils.ROAD_FACTOR;
+                    minutesAhead += km / speedKmph * 60.0;
+                    remaining = minutesAhead;
+                    minutesAhead += stopMinutes;
+                    lat = dropLat;
+                    lon = dropLon;
+                } else {
+                    double travel = deliveryTimeEstimator.estimateTravelMinutes((Long) order[1],
+                            (LocalDateTime) order[2], DEFAULT_TRAVEL_MINUTES);
+                    double onRoad = delivery.getPickedUpAt() == null ? 0
+                            : Duration.between(delivery.getPickedUpAt(), now).toSeconds() / 60.0;
+                    remaining = Math.max(minutesAhead, travel - onRoad);
+                }
+
+                LocalDateTime eta = now.plusSeconds((long) Math.ceil(Math.max(remaining, 1.0) * 60));
+                LocalDateTime last = published.getOrDefault(delivery.getOrderId(), (LocalDateTime) order[5]);
+                if (last == null || Math.abs(Duration.between(last, eta).toMinutes()) >= thresholdMinutes) {
+                    changes.add(new Object[] { delivery.getOrderId(), eta });
+                }
+            }
+        });
+
+        published.keySet().retainAll(orders.keySet());
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Object[]> batch = new ArrayList<>(changes.size());
+            for (Object[] change : changes) {
+                batch.add(new Object[] { Timestamp.valueOf((LocalDateTime) change[1]), change[0] });
+            }
+            jdbcTemplate.batchUpdate(UPDATE_ETA, batch);
+        } catch (RuntimeException ex) {
+            logger.error("Failed to store {} updated ETAs", changes.size(), ex);
+            return;
+        }
+
+        for (Object[] change : changes) {
+            Long orderId = (Long) change[0];
+            LocalDateTime eta = (LocalDateTime) change[1];
+            published.put(orderId, eta);
+            orderTrackingService.publishEta(orderId, eta);
+        }
+        logger.debug("Updated ETA of {} in-flight orders", changes.size());
+    }
+}
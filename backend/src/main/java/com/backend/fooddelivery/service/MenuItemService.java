@@ -10,15 +10,13 @@ import com.backend.fooddelivery.model.Restaurant;
 import com.backend.fooddelivery.model.User;
 import com.backend.fooddelivery.repository.MenuItemRepository;
 import com.backend.fooddelivery.repository.RestaurantRepository;
-import com.backend.fooddelivery.repository.UserRepository;
+import com.backend.fooddelivery.security.CurrentUserResolver;
 import com.backend.fooddelivery.util.MenuItemMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -39,7 +37,7 @@ public class MenuItemService {
     private RestaurantRepository restaurantRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
     @Autowired
     private FileUploadService fileUploadService;
@@ -275,20 +273,10 @@ public class MenuItemService {
      * Check if current user owns the restaurant
      */
     private void checkRestaurantOwnership(Restaurant restaurant) {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
 
         if (!restaurant.getOwnerId().equals(user.getId()) && user.getRole() != User.Role.ADMIN) {
             throw new BadRequestException("You don't have permission to modify this menu item");
         }
     }
-
-    /**
-     * Get current authenticated user's email
-     */
-    private String getCurrentUserEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
-    }
 }
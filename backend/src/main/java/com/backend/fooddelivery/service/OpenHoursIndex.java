@@ -0,0 +1,292 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.model.Restaurant;
+import com.backend.fooddelivery.repository.RestaurantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Open Hours Index - Precomputed "open now" bitmap driven by a minute-of-week timing wheel
+ *
+ * Every restaurant contributes an OPEN and a CLOSE event per day to the wheel slot of the
+ * minute it happens in (overnight hours wrap into the next day, and Sunday wraps into Monday).
+ * A tick at the start of every minute applies the events of the slots that elapsed, so the
+ * open bit of a restaurant flips exactly at its boundaries and lookups are a single bit test.
+ * Edits are applied once their transaction commits, and the whole index is rebuilt periodically
+ * so changes made on other nodes are picked up.
+ */
+@Service
+public class OpenHoursIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenHoursIndex.class);
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Wheel slot -> events encoded as (restaurantId << 1) | (open ? 1 : 0)
+    private final long[][] wheel = new long[MINUTES_PER_WEEK][];
+
+    // Restaurant ID -> [openMinuteOfDay, closeMinuteOfDay], absent when always open
+    private final Map<Long, int[]> schedules = new HashMap<>();
+
+    // Restaurants that are active and not manually closed
+    private final BitSet enabled = new BitSet();
+
+    // Restaurants whose opening hours cover the current minute
+    private final BitSet withinHours = new BitSet();
+
+    private int lastAppliedSlot = -1;
+
+    /**
+     * Load all active restaurants once the application is up, and again periodically
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${open-hours.rebuild-interval-ms:60000}", initialDelayString = "${open-hours.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        List<Object[]> rows = restaurantRepository.findOpenHoursOfActiveRestaurants();
+
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(wheel, null);
+            schedules.clear();
+            enabled.clear();
+            withinHours.clear();
+            lastAppliedSlot = currentSlot();
+
+            for (Object[] row : rows) {
+                registerLocked((Long) row[0], true, (Boolean) row[1], (LocalTime) row[2], (LocalTime) row[3]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Open hours index built for {} restaurants", rows.size());
+    }
+
+    /**
+     * Add or refresh a restaurant once the surrounding transaction commits
+     */
+    public void registerAfterCommit(Restaurant restaurant) {
+        Long id = restaurant.getId();
+        Boolean isActive = restaurant.getIsActive();
+        Boolean isOpen = restaurant.getIsOpen();
+        LocalTime openingTime = restaurant.getOpeningTime();
+        LocalTime closingTime = restaurant.getClosingTime();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                registerLocked(id, isActive, isOpen, openingTime, closingTime);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Drop a restaurant from the index (e.g. after soft delete) once the surrounding transaction commits
+     */
+    public void removeAfterCommit(Long restaurantId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unscheduleLocked(restaurantId);
+                enabled.clear(toBit(restaurantId));
+                withinHours.clear(toBit(restaurantId));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Check whether a restaurant is open right now - O(1)
+     */
+    public boolean isOpenNow(Long restaurantId) {
+        int bit = toBit(restaurantId);
+        lock.readLock().lock();
+        try {
+            return enabled.get(bit) && withinHours.get(bit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get a point-in-time copy of the open-now bitmap, indexed by restaurant ID
+     */
+    public BitSet getOpenBitmap() {
+        lock.readLock().lock();
+        try {
+            BitSet open = (BitSet) enabled.clone();
+            open.and(withinHours);
+            return open;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Advance the wheel at the start of every minute
+     */
+    @Scheduled(cron = "0 * * * * *")
+    public void tick() {
+        lock.writeLock().lock();
+        try {
+            advanceLocked(currentSlot());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply all slots between the last applied one and the target slot
+     */
+    private void advanceLocked(int targetSlot) {
+        if (lastAppliedSlot < 0) {
+            lastAppliedSlot = targetSlot;
+            return;
+        }
+
+        while (lastAppliedSlot != targetSlot) {
+            lastAppliedSlot = (lastAppliedSlot + 1) % MINUTES_PER_WEEK;
+            long[] events = wheel[lastAppliedSlot];
+            if (events == null) {
+                continue;
+            }
+            for (long event : events) {
+                withinHours.set((int) (event >>> 1), (event & 1L) == 1L);
+            }
+        }
+    }
+
+    private void registerLocked(Long restaurantId, Boolean isActive, Boolean isOpen,
+            LocalTime openingTime, LocalTime closingTime) {
+        int bit = toBit(restaurantId);
+        unscheduleLocked(restaurantId);
+
+        enabled.set(bit, Boolean.TRUE.equals(isActive) && Boolean.TRUE.equals(isOpen));
+
+        // 24/7 if times not set
+        if (openingTime == null || closingTime == null) {
+            withinHours.set(bit);
+            return;
+        }
+
+        int openMinute = openingTime.getHour() * 60 + openingTime.getMinute();
+        int closeMinute = closingTime.getHour() * 60 + closingTime.getMinute();
+        if (openMinute == closeMinute) {
+            withinHours.clear(bit);
+            return;
+        }
+        schedules.put(restaurantId, new int[] { openMinute, closeMinute });
+
+        for (int day = 0; day < 7; day++) {
+            int openSlot = day * MINUTES_PER_DAY + openMinute;
+            // Handle overnight hours (e.g., 22:00 - 02:00) by closing on the following day
+            int closeOffset = closeMinute < openMinute ? MINUTES_PER_DAY : 0;
+            int closeSlot = (day * MINUTES_PER_DAY + closeMinute + closeOffset) % MINUTES_PER_WEEK;
+
+            addEvent(closeSlot, bit, false);
+            addEvent(openSlot, bit, true);
+        }
+
+        withinHours.set(bit, isWithinHours(minuteOfDay(LocalTime.now()), openMinute, closeMinute));
+    }
+
+    private void unscheduleLocked(Long restaurantId) {
+        int[] schedule = schedules.remove(restaurantId);
+        if (schedule == null) {
+            return;
+        }
+
+        int bit = toBit(restaurantId);
+        int openMinute = schedule[0];
+        int closeMinute = schedule[1];
+        for (int day = 0; day < 7; day++) {
+            int closeOffset = closeMinute < openMinute ? MINUTES_PER_DAY : 0;
+            removeEvents(day * MINUTES_PER_DAY + openMinute, bit);
+            removeEvents((day * MINUTES_PER_DAY + closeMinute + closeOffset) % MINUTES_PER_WEEK, bit);
+        }
+    }
+
+    private void addEvent(int slot, int bit, boolean open) {
+        long event = ((long) bit << 1) | (open ? 1L : 0L);
+        long[] events = wheel[slot];
+        if (events == null) {
+            wheel[slot] = new long[] { event };
+            return;
+        }
+        long[] grown = Arrays.copyOf(events, events.length + 1);
+        grown[events.length] = event;
+        wheel[slot] = grown;
+    }
+
+    private void removeEvents(int slot, int bit) {
+        long[] events = wheel[slot];
+        if (events == null) {
+            return;
+        }
+        long[] kept = Arrays.stream(events)
+                .filter(event -> (event >>> 1) != bit)
+                .toArray();
+        wheel[slot] = kept.length == 0 ? null : kept;
+    }
+
+    /**
+     * Opening time inclusive, closing time exclusive
+     */
+    static boolean isWithinHours(int minute, int openMinute, int closeMinute) {
+        if (closeMinute < openMinute) {
+            return minute >= openMinute || minute < closeMinute;
+        }
+        return minute >= openMinute && minute < closeMinute;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int currentSlot() {
+        LocalDateTime now = LocalDateTime.now();
+        return (now.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + minuteOfDay(now.toLocalTime());
+    }
+
+    private static int toBit(Long restaurantId) {
+        return Math.toIntExact(restaurantId);
+    }
+}
@@ -6,13 +6,13 @@ import com.backend.fooddelivery.exception.BadRequestException;
 import com.backend.fooddelivery.exception.ResourceNotFoundException;
 import com.backend.fooddelivery.model.*;
 import com.backend.fooddelivery.repository.*;
+import com.backend.fooddelivery.security.CurrentUserResolver;
 import com.backend.fooddelivery.util.OrderMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -33,7 +33,16 @@ public class OrderService {
     private RestaurantRepository restaurantRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private OpenHoursIndex openHoursIndex;
+
+    @Autowired
+    private DeliveryTimeEstimator deliveryTimeEstimator;
+
+    @Autowired
+    private OrderTrackingService orderTrackingService;
 
     private static final Double DELIVERY_FEE = 50.0;
     private static final Double TAX_RATE = 0.05; // 5%
@@ -43,18 +52,22 @@ public class OrderService {
      */
     @Transactional
     public OrderResponse placeOrder(PlaceOrderRequest request) {
-        String email = getCurrentUserEmail();
-        User customer = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User customer = currentUserResolver.getCurrentUser();
 
         Restaurant restaurant = restaurantRepository.findByIdAndIsActiveTrue(request.getRestaurantId())
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found"));
 
+        if (!openHoursIndex.isOpenNow(restaurant.getId())) {
+            throw new BadRequestException("Restaurant is currently closed");
+        }
+
         // Create order
         Order order = new Order();
         order.setCustomerId(customer.getId());
         order.setRestaurantId(restaurant.getId());
         order.setDeliveryAddress(request.getDeliveryAddress());
+        order.setDeliveryLatitude(request.getDeliveryLatitude());
+        order.setDeliveryLongitude(request.getDeliveryLongitude());
         order.setSpecialInstructions(request.getSpecialInstructions());
         order.setStatus(Order.OrderStatus.PLACED);
         order.setDeliveryFee(DELIVERY_FEE);
@@ -89,7 +102,8 @@ public class OrderService {
         order.setSubtotal(subtotal);
         order.setTax(subtotal * TAX_RATE);
         order.calculateTotalAmount();
-        order.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(restaurant.getAverageDeliveryTime()));
+        order.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(
+                deliveryTimeEstimator.estimateMinutes(restaurant.getId(), restaurant.getAverageDeliveryTime())));
 
         Order savedOrder = orderRepository.save(order);
         return OrderMapper.toOrderResponse(savedOrder);
@@ -109,14 +123,25 @@ public class OrderService {
         return OrderMapper.toOrderResponse(order);
     }
 
+    /**
+     * Open a live tracking stream for an order
+     */
+    public SseEmitter trackOrder(Long id) {
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
+
+        // Check access
+        checkOrderAccess(order);
+
+        return orderTrackingService.subscribe(order);
+    }
+
     /**
      * Get customer orders
      */
     @Transactional(readOnly = true)
     public Page<OrderResponse> getMyOrders(Pageable pageable) {
-        String email = getCurrentUserEmail();
-        User customer = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User customer = currentUserResolver.getCurrentUser();
 
         return orderRepository.findByCustomerIdOrderByOrderedAtDesc(customer.getId(), pageable)
                 .map(OrderMapper::toOrderResponse);
@@ -163,6 +188,7 @@ public class OrderService {
         }
 
         Order updatedOrder = orderRepository.save(order);
+        orderTrackingService.publishStatusAfterCommit(updatedOrder);
         return OrderMapper.toOrderResponse(updatedOrder);
     }
 
@@ -182,6 +208,7 @@ public class OrderService {
 
         order.setStatus(Order.OrderStatus.CANCELLED);
         Order updatedOrder = orderRepository.save(order);
+        orderTrackingService.publishStatusAfterCommit(updatedOrder);
         return OrderMapper.toOrderResponse(updatedOrder);
     }
 
@@ -189,9 +216,7 @@ public class OrderService {
      * Check if current user has access to order
      */
     private void checkOrderAccess(Order order) {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
 
         if (user.getRole() == User.Role.ADMIN) {
             return; // Admin has access to all orders
@@ -206,20 +231,10 @@ public class OrderService {
      * Check restaurant ownership
      */
     private void checkRestaurantOwnership(Restaurant restaurant) {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
 
         if (user.getRole() != User.Role.ADMIN && !restaurant.getOwnerId().equals(user.getId())) {
             throw new BadRequestException("You don't have permission to access this restaurant's orders");
         }
     }
-
-    /**
-     * Get current user email
-     */
-    private String getCurrentUserEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
-    }
 }
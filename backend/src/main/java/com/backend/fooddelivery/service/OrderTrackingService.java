@@ -0,0 +1,142 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Order Tracking Service - Server-sent event channel per order
+ *
+ * Streams are closed once the order is delivered or cancelled, right after its final status
+ * event, so finished orders don't hold connections until the emitter timeout.
+ */
+@Service
+public class OrderTrackingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderTrackingService.class);
+
+    @Value("${tracking.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMillis;
+
+    // Order ID -> open subscriptions
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Open a tracking stream for an order, starting with its current status and ETA
+     * Orders that already reached a final state get a single status event on a closed stream
+     */
+    public SseEmitter subscribe(Order order) {
+        Long orderId = order.getId();
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Map<String, Object> data = eventData(orderId, order.getStatus().name(), order.getEstimatedDeliveryTime());
+        if (order.isFinalState()) {
+            sendFinal(orderId, emitter, data);
+            return emitter;
+        }
+
+        subscribers.computeIfAbsent(orderId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(orderId, emitter));
+        emitter.onTimeout(() -> unsubscribe(orderId, emitter));
+        emitter.onError(ex -> unsubscribe(orderId, emitter));
+
+        send(orderId, emitter, "status", data);
+        return emitter;
+    }
+
+    /**
+     * Push the order's new status once the surrounding transaction commits
+     * A final status (delivered or cancelled) also closes every stream of the order
+     */
+    public void publishStatusAfterCommit(Order order) {
+        Long orderId = order.getId();
+        boolean finalState = order.isFinalState();
+        Map<String, Object> data = eventData(orderId, order.getStatus().name(), order.getEstimatedDeliveryTime());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishStatus(orderId, data, finalState);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishStatus(orderId, data, finalState);
+            }
+        });
+    }
+
+    /**
+     * Push a new ETA to everyone tracking the order
+     */
+    public void publishEta(Long orderId, LocalDateTime estimatedDeliveryTime) {
+        List<SseEmitter> emitters = subscribers.get(orderId);
+        if (emitters == null) {
+            return;
+        }
+        Map<String, Object> data = eventData(orderId, null, estimatedDeliveryTime);
+        for (SseEmitter emitter : emitters) {
+            send(orderId, emitter, "eta", data);
+        }
+    }
+
+    private void publishStatus(Long orderId, Map<String, Object> data, boolean finalState) {
+        List<SseEmitter> emitters = finalState ? subscribers.remove(orderId) : subscribers.get(orderId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            if (finalState) {
+                sendFinal(orderId, emitter, data);
+            } else {
+                send(orderId, emitter, "status", data);
+            }
+        }
+    }
+
+    private void sendFinal(Long orderId, SseEmitter emitter, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(data));
+            emitter.complete();
+        } catch (IOException | IllegalStateException ex) {
+            logger.debug("Dropping tracking subscriber of order {}: {}", orderId, ex.getMessage());
+            emitter.completeWithError(ex);
+        }
+    }
+
+    private void send(Long orderId, SseEmitter emitter, String event, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException ex) {
+            logger.debug("Dropping tracking subscriber of order {}: {}", orderId, ex.getMessage());
+            unsubscribe(orderId, emitter);
+        }
+    }
+
+    private void unsubscribe(Long orderId, SseEmitter emitter) {
+        subscribers.computeIfPresent(orderId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static Map<String, Object> eventData(Long orderId, String status, LocalDateTime estimatedDeliveryTime) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("orderId", orderId);
+        if (status != null) {
+            data.put("status", status);
+        }
+        data.put("estimatedDeliveryTime", estimatedDeliveryTime);
+        return data;
+    }
+}
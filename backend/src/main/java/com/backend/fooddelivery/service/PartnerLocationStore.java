@@ -0,0 +1,394 @@
+package com.backend.fooddelivery.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.VarHandle;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Partner Location Store - Latest known position of each delivery partner
+ *
+ * Request threads publish GPS pings into a lock-free multi-producer ring buffer of primitive
+ * slots. A single drainer thread folds them into parallel arrays holding only the latest
+ * position per partner (guarded by a per-slot sequence counter so readers never block) and
+ * samples one point per partner every trail interval for the location trail, which is written
+ * to the database in JDBC batches off the request path.
+ */
+@Service
+public class PartnerLocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartnerLocationStore.class);
+
+    private static final int DRAIN_BATCH = 4096;
+    private static final int INITIAL_PARTNERS = 1024;
+
+    private static final String INSERT_TRAIL =
+            "INSERT INTO partner_location_trail (partner_id, latitude, longitude, recorded_at) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${location.ring-capacity:65536}")
+    private int ringCapacity;
+
+    @Value("${location.trail-interval-ms:30000}")
+    private long trailIntervalMillis;
+
+    @Value("${location.trail-max-buffered:100000}")
+    private int trailMaxBuffered;
+
+    // Ring buffer - slot i holds the ping with sequence s where (s & mask) == i
+    private long[] ringPartnerIds;
+    private double[] ringLatitudes;
+    private double[] ringLongitudes;
+    private long[] ringTimestamps;
+    private AtomicLongArray ringPublished; // sequence + 1 once the slot is readable
+    private int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    // Latest positions - written by the drainer only
+    private final Map<Long, Integer> slots = new ConcurrentHashMap<>();
+    private volatile Table table = new Table(INITIAL_PARTNERS);
+    private volatile int partnerCount;
+
+    private TrailBuffer trail = new TrailBuffer(256);
+
+    private final LongAdder dropped = new LongAdder();
+    private Thread drainer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        int capacity = Integer.highestOneBit(Math.max(ringCapacity - 1, 1)) << 1;
+        ringPartnerIds = new long[capacity];
+        ringLatitudes = new double[capacity];
+        ringLongitudes = new double[capacity];
+        ringTimestamps = new long[capacity];
+        ringPublished = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "partner-location-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(5));
+        flushTrail();
+    }
+
+    /**
+     * Publish a ping without blocking, returns false if the buffer is full and the ping was dropped
+     */
+    public boolean offer(long partnerId, double latitude, double longitude, long timestampMillis) {
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+
+        int i = (int) (seq & mask);
+        ringPartnerIds[i] = partnerId;
+        ringLatitudes[i] = latitude;
+        ringLongitudes[i] = longitude;
+        ringTimestamps[i] = timestampMillis;
+        ringPublished.set(i, seq + 1);
+        return true;
+    }
+
+    /**
+     * Get latest position of a partner, or null if unknown
+     */
+    public Position get(Long partnerId) {
+        Integer slot = slots.get(partnerId);
+        if (slot == null) {
+            return null;
+        }
+        Table t = table;
+        while (true) {
+            long version = t.versions.get(slot);
+            if ((version & 1L) == 0) {
+                double latitude = t.latitudes[slot];
+                double longitude = t.longitudes[slot];
+                long timestamp = t.timestamps[slot];
+                VarHandle.loadLoadFence();
+                if (t.versions.get(slot) == version) {
+                    return new Position(latitude, longitude, timestamp);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Copy all positions reported within the given age into parallel arrays
+     */
+    public Snapshot snapshot(long maxAgeMillis) {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        int count = partnerCount;
+        Table t = table;
+        Snapshot snapshot = new Snapshot(count);
+
+        for (int slot = 0; slot < count; slot++) {
+            long version;
+            double latitude;
+            double longitude;
+            long timestamp;
+            do {
+                version = t.versions.get(slot);
+                latitude = t.latitudes[slot];
+                longitude = t.longitudes[slot];
+                timestamp = t.timestamps[slot];
+                VarHandle.loadLoadFence();
+            } while ((version & 1L) != 0 || t.versions.get(slot) != version);
+
+            if (timestamp >= cutoff) {
+                snapshot.partnerIds[snapshot.size] = t.partnerIds[slot];
+                snapshot.latitudes[snapshot.size] = latitude;
+                snapshot.longitudes[snapshot.size] = longitude;
+                snapshot.size++;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Number of pings dropped because the ring buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Write sampled trail points to the database in one JDBC batch
+     */
+    @Scheduled(fixedDelayString = "${location.trail-flush-interval-ms:10000}")
+    public void flushTrail() {
+        TrailBuffer batch;
+        synchronized (this) {
+            if (trail.size == 0) {
+                return;
+            }
+            batch = trail;
+            trail = new TrailBuffer(Math.max(256, batch.size));
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_TRAIL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, batch.partnerIds[i]);
+                    ps.setDouble(2, batch.latitudes[i]);
+                    ps.setDouble(3, batch.longitudes[i]);
+                    ps.setTimestamp(4, new Timestamp(batch.timestamps[i]));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size;
+                }
+            });
+        } catch (RuntimeException ex) {
+            logger.error("Failed to persist {} location trail points", batch.size, ex);
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(1_000_000);
+                }
+            } catch (RuntimeException ex) {
+                logger.error("Location drainer failed", ex);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Apply up to DRAIN_BATCH published pings in sequence order
+     */
+    private int drain() {
+        long seq = tail;
+        int drained = 0;
+        while (drained < DRAIN_BATCH) {
+            int i = (int) (seq & mask);
+            if (ringPublished.get(i) != seq + 1) {
+                break; // not yet published
+            }
+            apply(ringPartnerIds[i], ringLatitudes[i], ringLongitudes[i], ringTimestamps[i]);
+            seq++;
+            drained++;
+        }
+        if (drained > 0) {
+            tail = seq;
+        }
+        return drained;
+    }
+
+    private void apply(long partnerId, double latitude, double longitude, long timestamp) {
+        Integer slot = slots.get(partnerId);
+        Table t = table;
+        boolean isNew = slot == null;
+        if (isNew) {
+            slot = partnerCount;
+            if (slot == t.capacity()) {
+                t = t.grow();
+                table = t;
+            }
+            t.partnerIds[slot] = partnerId;
+        } else if (timestamp < t.timestamps[slot]) {
+            return; // out-of-order ping
+        }
+
+        long version = t.versions.get(slot);
+        t.versions.set(slot, version + 1);
+        VarHandle.storeStoreFence();
+        t.latitudes[slot] = latitude;
+        t.longitudes[slot] = longitude;
+        t.timestamps[slot] = timestamp;
+        t.versions.set(slot, version + 2);
+
+        // Only make a new slot visible to readers once it holds a position
+        if (isNew) {
+            slots.put(partnerId, slot);
+            partnerCount = slot + 1;
+        }
+
+        if (timestamp - t.lastTrailAt[slot] >= trailIntervalMillis) {
+            t.lastTrailAt[slot] = timestamp;
+            synchronized (this) {
+                if (trail.size < trailMaxBuffered) {
+                    trail.add(partnerId, latitude, longitude, timestamp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Single partner position
+     */
+    public record Position(double latitude, double longitude, long timestampMillis) {
+    }
+
+    /**
+     * Point-in-time copy of partner positions
+     */
+    public static class Snapshot {
+
+        public final long[] partnerIds;
+        public final double[] latitudes;
+        public final double[] longitudes;
+        public int size;
+
+        Snapshot(int capacity) {
+            this.partnerIds = new long[capacity];
+            this.latitudes = new double[capacity];
+            this.longitudes = new double[capacity];
+        }
+    }
+
+    /**
+     * Latest position per partner slot, replaced by a larger copy when full
+     */
+    private static class Table {
+
+        final long[] partnerIds;
+        final double[] latitudes;
+        final double[] longitudes;
+        final long[] timestamps;
+        final long[] lastTrailAt;
+        final AtomicLongArray versions; // odd while the slot is being written
+
+        Table(int capacity) {
+            this(new long[capacity], new double[capacity], new double[capacity], new long[capacity],
+                    new long[capacity], new AtomicLongArray(capacity));
+        }
+
+        private Table(long[] partnerIds, double[] latitudes, double[] longitudes, long[] timestamps,
+                long[] lastTrailAt, AtomicLongArray versions) {
+            this.partnerIds = partnerIds;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.timestamps = timestamps;
+            this.lastTrailAt = lastTrailAt;
+            this.versions = versions;
+        }
+
+        int capacity() {
+            return partnerIds.length;
+        }
+
+        Table grow() {
+            int capacity = capacity() * 2;
+            long[] versionCopy = new long[capacity];
+            for (int i = 0; i < capacity(); i++) {
+                versionCopy[i] = versions.get(i);
+            }
+            return new Table(Arrays.copyOf(partnerIds, capacity), Arrays.copyOf(latitudes, capacity),
+                    Arrays.copyOf(longitudes, capacity), Arrays.copyOf(timestamps, capacity),
+                    Arrays.copyOf(lastTrailAt, capacity), new AtomicLongArray(versionCopy));
+        }
+    }
+
+    /**
+     * Growable columnar buffer of sampled trail points
+     */
+    private static class TrailBuffer {
+
+        long[] partnerIds;
+        double[] latitudes;
+        double[] longitudes;
+        long[] timestamps;
+        int size;
+
+        TrailBuffer(int capacity) {
+            partnerIds = new long[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            timestamps = new long[capacity];
+        }
+
+        void add(long partnerId, double latitude, double longitude, long timestamp) {
+            if (size == partnerIds.length) {
+                int capacity = size * 2;
+                partnerIds = Arrays.copyOf(partnerIds, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+            }
+            partnerIds[size] = partnerId;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            timestamps[size] = timestamp;
+            size++;
+        }
+    }
+}
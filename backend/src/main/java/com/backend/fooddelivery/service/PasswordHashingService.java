@@ -0,0 +1,177 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Password Hashing Service - Runs BCrypt off the request threads
+ *
+ * Hashing and verification run on a fixed pool capped at a share of the CPUs, so a login
+ * storm cannot take every core away from other requests. When the pool cannot be sized to the
+ * share (e.g. one thread on a single CPU) each worker pauses after a hash to keep its duty cycle
+ * within it. Work beyond the pool's small queue is rejected immediately with 503, and queued work
+ * whose caller has already waited past the timeout is dropped instead of hashed. Continuations
+ * that do blocking work run on a separate callback pool so they never occupy a hashing thread.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.cpu-share:0.5}")
+    private double cpuShare;
+
+    @Value("${auth.hashing.callback-threads:8}")
+    private int callbackThreads;
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private ThreadPoolExecutor pool;
+    private ExecutorService callbackPool;
+    // Fraction of its time each hashing thread may spend hashing, 1 means no pauses
+    private double dutyCycle;
+    private Timer encodeTimer;
+    private Timer matchTimer;
+    private Timer queueWaitTimer;
+    private Counter rejected;
+    private Counter expired;
+
+    // Hash checked for unknown users so their logins take as long as real ones
+    private String dummyHash;
+
+    @PostConstruct
+    public void init() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        double cpus = processors * cpuShare;
+        int size = threads > 0 ? threads : Math.max(1, (int) cpus);
+        dutyCycle = Math.min(1.0, cpus / size);
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        AtomicInteger callbackThreadCount = new AtomicInteger();
+        callbackPool = Executors.newFixedThreadPool(callbackThreads, runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-callback-" + callbackThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        encodeTimer = Timer.builder("auth.hashing.duration").tag("operation", "encode").register(meterRegistry);
+        matchTimer = Timer.builder("auth.hashing.duration").tag("operation", "matches").register(meterRegistry);
+        queueWaitTimer = Timer.builder("auth.hashing.queue.wait").register(meterRegistry);
+        rejected = Counter.builder("auth.hashing.rejected").tag("reason", "queue_full").register(meterRegistry);
+        expired = Counter.builder("auth.hashing.rejected").tag("reason", "timeout").register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.size", pool, p -> p.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.hashing.active", pool, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+
+        dummyHash = passwordEncoder.encode("dummy-password-for-unknown-users");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+        callbackPool.shutdown();
+    }
+
+    /**
+     * Executor for continuations of hashing that do blocking work such as database writes
+     */
+    public Executor callbackExecutor() {
+        return callbackPool;
+    }
+
+    /**
+     * Hash a new password
+     */
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Check a password against a stored hash, a null hash (unknown user) never matches
+     */
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return submit(matchTimer, () -> {
+                passwordEncoder.matches(rawPassword, dummyHash);
+                return false;
+            });
+        }
+        return submit(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> operation) {
+        long enqueuedAt = System.nanoTime();
+        long deadline = enqueuedAt + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                if (startedAt > deadline) {
+                    expired.increment();
+                    result.completeExceptionally(new ServiceUnavailableException("Authentication is busy, please retry"));
+                    return;
+                }
+                try {
+                    result.complete(timer.record(operation));
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+                pauseForCpuShare(System.nanoTime() - startedAt);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new ServiceUnavailableException("Authentication is busy, please retry"));
+        }
+        return result;
+    }
+
+    /**
+     * Idle the hashing thread long enough that it stays within its share of the CPU
+     */
+    private void pauseForCpuShare(long busyNanos) {
+        if (dutyCycle >= 1.0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep((long) (busyNanos * (1.0 - dutyCycle) / dutyCycle));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
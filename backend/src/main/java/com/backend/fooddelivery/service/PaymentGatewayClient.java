@@ -0,0 +1,121 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Payment Gateway Client - Asynchronous access to the payment gateway
+ *
+ * Every call runs on a dedicated gateway pool, behind a bulkhead that rejects calls once the
+ * configured number are in flight, and fails with a timeout instead of waiting indefinitely.
+ * Callers never hold a database transaction while a call is outstanding, and continuations
+ * run on the gateway pool rather than on the JDK's single timeout thread. The simulated
+ * latency turns the mock RazorpayService into a local stub gateway for load testing.
+ */
+@Service
+public class PaymentGatewayClient {
+
+    @Autowired
+    private RazorpayService razorpayService;
+
+    @Value("${payment.gateway.max-concurrent:64}")
+    private int maxConcurrent;
+
+    @Value("${payment.gateway.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    @Value("${payment.gateway.stub-latency-ms:0}")
+    private long stubLatencyMillis;
+
+    private Semaphore bulkhead;
+    private ExecutorService gatewayPool;
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(maxConcurrent);
+        AtomicInteger threadCount = new AtomicInteger();
+        gatewayPool = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "payment-gateway-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gatewayPool.shutdown();
+    }
+
+    /**
+     * Executor for continuations of gateway calls that do blocking work such as database writes
+     */
+    public Executor callbackExecutor() {
+        return gatewayPool;
+    }
+
+    /**
+     * Create a payment order at the gateway
+     */
+    public CompletableFuture<Map<String, Object>> createOrder(Double amount, String currency) {
+        return call(() -> razorpayService.createPaymentOrder(amount, currency));
+    }
+
+    /**
+     * Capture an authorized payment at the gateway
+     */
+    public CompletableFuture<Map<String, Object>> capturePayment(String gatewayPaymentId, Double amount) {
+        return call(() -> razorpayService.capturePayment(gatewayPaymentId, amount));
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<T> operation) {
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new ServiceUnavailableException("Payment gateway is busy, please retry"));
+        }
+
+        Executor executor = stubLatencyMillis > 0
+                ? CompletableFuture.delayedExecutor(stubLatencyMillis, TimeUnit.MILLISECONDS, gatewayPool)
+                : gatewayPool;
+        CompletableFuture<T> call;
+        try {
+            call = CompletableFuture.supplyAsync(operation, executor);
+        } catch (RuntimeException ex) {
+            bulkhead.release();
+            throw ex;
+        }
+
+        // The permit is held until the gateway call itself finishes, even if the caller timed out
+        call.whenComplete((result, ex) -> bulkhead.release());
+
+        // Timeouts complete on the JDK's shared delayer thread, so hop back to the pool before
+        // anything (including the caller's dependent stages) runs
+        return call.copy()
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionallyAsync(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof TimeoutException) {
+                        throw new ServiceUnavailableException("Payment gateway timed out", cause);
+                    }
+                    if (cause instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new CompletionException(cause);
+                }, gatewayPool);
+    }
+}
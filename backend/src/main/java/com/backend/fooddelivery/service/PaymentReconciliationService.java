@@ -0,0 +1,295 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.model.Order;
+import com.backend.fooddelivery.model.Payment;
+import com.backend.fooddelivery.model.PaymentDiscrepancy.DiscrepancyType;
+import com.backend.fooddelivery.model.ReconciliationRun;
+import com.backend.fooddelivery.repository.ReconciliationRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Payment Reconciliation Service - Nightly check of payments against their orders
+ *
+ * Orders (by ID) and payments (by order ID) are read through two forward-only cursors with a
+ * fetch size, so the database streams rows instead of materialising either table, and merged
+ * on the order ID keeping only the current order's payments in memory. Discrepancies are
+ * written to payment_discrepancies together with the run's checkpoint every few thousand
+ * orders; a run that fails or is interrupted resumes after its last checkpoint.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    private static final double AMOUNT_TOLERANCE = 0.005;
+
+    private static final String SELECT_ORDERS =
+            "SELECT id, status, total_amount FROM orders WHERE id > ? AND id <= ? ORDER BY id";
+    private static final String SELECT_PAYMENTS =
+            "SELECT id, order_id, amount, status, payment_method FROM payments "
+                    + "WHERE order_id > ? AND order_id <= ? ORDER BY order_id, id";
+    private static final String INSERT_DISCREPANCY =
+            "INSERT INTO payment_discrepancies (run_id, order_id, payment_id, type, order_status, payment_status, "
+                    + "order_amount, payment_amount) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_CHECKPOINT =
+            "UPDATE reconciliation_runs SET checkpoint_order_id = ?, orders_scanned = ?, payments_scanned = ?, "
+                    + "discrepancy_count = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ReconciliationRunRepository runRepository;
+
+    @Value("${payment.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.reconciliation.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${payment.reconciliation.checkpoint-interval:5000}")
+    private int checkpointInterval;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Run (or resume) reconciliation, scheduled nightly
+     */
+    @Scheduled(cron = "${payment.reconciliation.cron:0 30 2 * * *}")
+    public void reconcile() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ReconciliationRun run = startOrResume();
+            try {
+                scan(run);
+                run.setStatus(ReconciliationRun.RunStatus.COMPLETED);
+                run.setFinishedAt(LocalDateTime.now());
+                runRepository.save(run);
+                logger.info("Reconciliation run {} completed: {} orders, {} payments, {} discrepancies",
+                        run.getId(), run.getOrdersScanned(), run.getPaymentsScanned(), run.getDiscrepancyCount());
+            } catch (RuntimeException ex) {
+                // Work up to the last checkpoint is kept, the next run resumes from there
+                run = runRepository.findById(run.getId()).orElse(run);
+                run.setStatus(ReconciliationRun.RunStatus.FAILED);
+                runRepository.save(run);
+                logger.error("Reconciliation run {} failed after order {}", run.getId(), run.getCheckpointOrderId(), ex);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Resume the latest unfinished run, or start a new one covering all current orders
+     */
+    private ReconciliationRun startOrResume() {
+        ReconciliationRun latest = runRepository.findFirstByOrderByIdDesc().orElse(null);
+        if (latest != null && latest.getStatus() != ReconciliationRun.RunStatus.COMPLETED) {
+            logger.info("Resuming reconciliation run {} after order {}", latest.getId(), latest.getCheckpointOrderId());
+            latest.setStatus(ReconciliationRun.RunStatus.RUNNING);
+            return runRepository.save(latest);
+        }
+
+        Long maxOrderId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Long.class);
+        ReconciliationRun run = new ReconciliationRun();
+        run.setMaxOrderId(maxOrderId);
+        run.setStartedAt(LocalDateTime.now());
+        return runRepository.save(run);
+    }
+
+    private void scan(ReconciliationRun run) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            // Cursors only stream (rather than buffer the whole result) inside a transaction
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                merge(connection, run);
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private void merge(Connection connection, ReconciliationRun run) throws SQLException {
+        try (PreparedStatement orderStatement = openCursor(connection, SELECT_ORDERS, run);
+                PreparedStatement paymentStatement = openCursor(connection, SELECT_PAYMENTS, run);
+                ResultSet orders = orderStatement.executeQuery();
+                ResultSet payments = paymentStatement.executeQuery()) {
+
+            Batch batch = new Batch(run);
+            List<PaymentRow> group = new ArrayList<>();
+            boolean hasOrder = orders.next();
+            boolean hasPayment = payments.next();
+
+            while (hasOrder || hasPayment) {
+                long orderKey = hasOrder ? orders.getLong(1) : Long.MAX_VALUE;
+                long paymentKey = hasPayment ? payments.getLong(2) : Long.MAX_VALUE;
+                long key = Math.min(orderKey, paymentKey);
+
+                OrderRow order = null;
+                if (orderKey == key) {
+                    order = new OrderRow(key, orders.getString(2), getDouble(orders, 3));
+                    hasOrder = orders.next();
+                    batch.ordersScanned++;
+                }
+                group.clear();
+                while (hasPayment && payments.getLong(2) == key) {
+                    group.add(new PaymentRow(payments.getLong(1), getDouble(payments, 3),
+                            payments.getString(4), payments.getString(5)));
+                    hasPayment = payments.next();
+                    batch.paymentsScanned++;
+                }
+
+                check(key, order, group, batch);
+                if (batch.ordersScanned + batch.paymentsScanned >= checkpointInterval) {
+                    batch.checkpoint(key);
+                }
+            }
+            batch.checkpoint(run.getMaxOrderId());
+            logger.info("Reconciliation run {} discrepancies by type: {}", run.getId(), batch.byType);
+        }
+    }
+
+    private PreparedStatement openCursor(Connection connection, String sql, ReconciliationRun run) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        statement.setLong(1, run.getCheckpointOrderId());
+        statement.setLong(2, run.getMaxOrderId());
+        return statement;
+    }
+
+    /**
+     * Compare one order with its payments, order is null if the payments reference a missing order
+     */
+    private void check(long orderId, OrderRow order, List<PaymentRow> payments, Batch batch) {
+        if (order == null) {
+            for (PaymentRow payment : payments) {
+                batch.add(DiscrepancyType.ORPHAN_PAYMENT, orderId, null, payment);
+            }
+            return;
+        }
+
+        PaymentRow captured = null;
+        boolean prepaid = false;
+        for (PaymentRow payment : payments) {
+            boolean completed = Payment.PaymentStatus.COMPLETED.name().equals(payment.status);
+            if (completed) {
+                if (captured != null) {
+                    batch.add(DiscrepancyType.DUPLICATE_CAPTURE, orderId, order, payment);
+                }
+                captured = payment;
+            }
+            if (!Payment.PaymentMethod.CASH_ON_DELIVERY.name().equals(payment.method)) {
+                prepaid = true;
+            }
+            if (!Payment.PaymentStatus.FAILED.name().equals(payment.status) && order.totalAmount != null
+                    && payment.amount != null && Math.abs(payment.amount - order.totalAmount) > AMOUNT_TOLERANCE) {
+                batch.add(DiscrepancyType.AMOUNT_MISMATCH, orderId, order, payment);
+            }
+            if (Order.OrderStatus.CANCELLED.name().equals(order.status)) {
+                if (Payment.PaymentStatus.PENDING.name().equals(payment.status)) {
+                    batch.add(DiscrepancyType.PENDING_FOR_CANCELLED, orderId, order, payment);
+                } else if (completed) {
+                    batch.add(DiscrepancyType.CAPTURED_FOR_CANCELLED, orderId, order, payment);
+                }
+            }
+        }
+        if (Order.OrderStatus.DELIVERED.name().equals(order.status) && prepaid && captured == null) {
+            batch.add(DiscrepancyType.DELIVERED_UNPAID, orderId, order, payments.get(payments.size() - 1));
+        }
+    }
+
+    private static Double getDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private record OrderRow(long id, String status, Double totalAmount) {
+    }
+
+    private record PaymentRow(long id, Double amount, String status, String method) {
+    }
+
+    /**
+     * Discrepancies and counters since the last checkpoint
+     */
+    private class Batch {
+
+        final ReconciliationRun run;
+        final List<Object[]> rows = new ArrayList<>();
+        final Map<DiscrepancyType, Integer> byType = new EnumMap<>(DiscrepancyType.class);
+        long ordersScanned;
+        long paymentsScanned;
+
+        Batch(ReconciliationRun run) {
+            this.run = run;
+        }
+
+        void add(DiscrepancyType type, long orderId, OrderRow order, PaymentRow payment) {
+            rows.add(new Object[] { run.getId(), orderId, payment.id, type.name(),
+                    order != null ? order.status : null, payment.status,
+                    order != null ? order.totalAmount : null, payment.amount });
+            byType.merge(type, 1, Integer::sum);
+        }
+
+        /**
+         * Commit the buffered discrepancies and advance the checkpoint in one transaction
+         */
+        void checkpoint(long orderId) {
+            run.setCheckpointOrderId(orderId);
+            run.setOrdersScanned(run.getOrdersScanned() + ordersScanned);
+            run.setPaymentsScanned(run.getPaymentsScanned() + paymentsScanned);
+            run.setDiscrepancyCount(run.getDiscrepancyCount() + rows.size());
+
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_DISCREPANCY, rows, rows.size(), (ps, row) -> {
+                        for (int i = 0; i < row.length; i++) {
+                            if (row[i] == null) {
+                                ps.setNull(i + 1, i >= 6 ? Types.DOUBLE : Types.VARCHAR);
+                            } else {
+                                ps.setObject(i + 1, row[i]);
+                            }
+                        }
+                    });
+                }
+                jdbcTemplate.update(UPDATE_CHECKPOINT, run.getCheckpointOrderId(), run.getOrdersScanned(),
+                        run.getPaymentsScanned(), run.getDiscrepancyCount(), run.getId());
+            });
+
+            rows.clear();
+            ordersScanned = 0;
+            paymentsScanned = 0;
+        }
+    }
+}
@@ -10,8 +10,11 @@ import com.backend.fooddelivery.repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Payment Service - Handles payment processing with Razorpay integration
@@ -28,19 +31,18 @@ public class PaymentService {
     @Autowired
     private RazorpayService razorpayService;
 
+    @Autowired
+    private PaymentGatewayClient paymentGatewayClient;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Process payment for order
+     * Reserves a PENDING payment, creates the gateway order outside any transaction and
+     * records the gateway reference in a second short transaction
      */
-    @Transactional
-    public Payment processPayment(PaymentRequest request) {
-        Order order = orderRepository.findById(request.getOrderId())
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
-
-        // Check if payment already exists
-        if (paymentRepository.findByOrderId(order.getId()).isPresent()) {
-            throw new BadRequestException("Payment already processed for this order");
-        }
-
+    public CompletableFuture<Payment> processPayment(PaymentRequest request) {
         Payment.PaymentMethod method;
         try {
             method = Payment.PaymentMethod.valueOf(request.getPaymentMethod().toUpperCase());
@@ -48,26 +50,65 @@ public class PaymentService {
             throw new BadRequestException("Invalid payment method");
         }
 
-        Payment payment = new Payment();
-        payment.setOrderId(order.getId());
+        Payment reserved = transactionTemplate.execute(tx -> reservePayment(request, method));
+
+        // For online payments, integrate with Razorpay
+        boolean needsGatewayOrder = method != Payment.PaymentMethod.CASH_ON_DELIVERY && request.getTransactionId() == null;
+        if (!needsGatewayOrder) {
+            return CompletableFuture.completedFuture(reserved);
+        }
+
+        return paymentGatewayClient.createOrder(reserved.getAmount(), "INR")
+                .handleAsync((razorpayOrder, ex) -> {
+                    if (ex != null) {
+                        // Mark failed so the customer can retry, then surface the gateway error
+                        transactionTemplate.executeWithoutResult(tx -> paymentRepository.findById(reserved.getId())
+                                .ifPresent(payment -> {
+                                    payment.setStatus(Payment.PaymentStatus.FAILED);
+                                    payment.setPaymentDetails("Razorpay order creation failed");
+                                    paymentRepository.save(payment);
+                                }));
+                        throw ex instanceof CompletionException && ex.getCause() instanceof RuntimeException cause
+                                ? cause
+                                : new CompletionException(ex);
+                    }
+                    return transactionTemplate.execute(tx -> {
+                        Payment payment = paymentRepository.findById(reserved.getId())
+                                .orElseThrow(() -> new ResourceNotFoundException("Payment not found"));
+                        payment.setTransactionId((String) razorpayOrder.get("id"));
+                        payment.setPaymentDetails("Razorpay Order: " + razorpayOrder.get("id"));
+                        return paymentRepository.save(payment); // Stays PENDING until verification
+                    });
+                }, paymentGatewayClient.callbackExecutor());
+    }
+
+    /**
+     * Phase one of processPayment - insert (or reuse a failed) payment row for the order
+     */
+    private Payment reservePayment(PaymentRequest request, Payment.PaymentMethod method) {
+        Order order = orderRepository.findById(request.getOrderId())
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+
+        // Check if payment already exists, a failed attempt may be retried
+        Payment payment = paymentRepository.findByOrderId(order.getId()).orElse(null);
+        if (payment != null && payment.getStatus() != Payment.PaymentStatus.FAILED) {
+            throw new BadRequestException("Payment already processed for this order");
+        }
+        if (payment == null) {
+            payment = new Payment();
+            payment.setOrderId(order.getId());
+        }
         payment.setAmount(order.getTotalAmount());
         payment.setPaymentMethod(method);
-        
-        // For online payments, integrate with Razorpay
-        if (method != Payment.PaymentMethod.CASH_ON_DELIVERY && request.getTransactionId() == null) {
-            // Create Razorpay order
-            Map<String, Object> razorpayOrder = razorpayService.createPaymentOrder(order.getTotalAmount(), "INR");
-            payment.setTransactionId((String) razorpayOrder.get("id"));
-            payment.setPaymentDetails("Razorpay Order: " + razorpayOrder.get("id"));
-            payment.setStatus(Payment.PaymentStatus.PENDING); // Will be updated after verification
+        payment.setTransactionId(request.getTransactionId());
+        payment.setPaymentDetails(null);
+
+        // For COD, mark as pending; for pre-verified online payments, mark as completed;
+        // otherwise pending until the gateway order exists and the payment is verified
+        if (method != Payment.PaymentMethod.CASH_ON_DELIVERY && request.getTransactionId() != null) {
+            payment.setStatus(Payment.PaymentStatus.COMPLETED);
         } else {
-            payment.setTransactionId(request.getTransactionId());
-            // For COD, mark as pending; for pre-verified online payments, mark as completed
-            if (method == Payment.PaymentMethod.CASH_ON_DELIVERY) {
-                payment.setStatus(Payment.PaymentStatus.PENDING);
-            } else {
-                payment.setStatus(Payment.PaymentStatus.COMPLETED);
-            }
+            payment.setStatus(Payment.PaymentStatus.PENDING);
         }
 
         return paymentRepository.save(payment);
@@ -102,10 +143,11 @@ public class PaymentService {
 
     /**
      * Verify Razorpay payment
+     * The signature is checked locally, the capture runs outside any transaction and the
+     * result is recorded in a short transaction afterwards
      */
-    @Transactional
-    public Payment verifyRazorpayPayment(Long paymentId, String razorpayOrderId, 
-                                         String razorpayPaymentId, String razorpaySignature) {
+    public CompletableFuture<Payment> verifyRazorpayPayment(Long paymentId, String razorpayOrderId,
+                                                            String razorpayPaymentId, String razorpaySignature) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found"));
 
@@ -118,23 +160,24 @@ public class PaymentService {
         }
 
         // Capture payment
-        Map<String, Object> captureDetails = razorpayService.capturePayment(
-                razorpayPaymentId, payment.getAmount());
-
-        payment.setStatus(Payment.PaymentStatus.COMPLETED);
-        payment.setTransactionId(razorpayPaymentId);
-        payment.setPaymentDetails("Razorpay Payment Verified: " + captureDetails.get("id"));
-
-        return paymentRepository.save(payment);
+        return paymentGatewayClient.capturePayment(razorpayPaymentId, payment.getAmount())
+                .thenApplyAsync(captureDetails -> transactionTemplate.execute(tx -> {
+                    Payment captured = paymentRepository.findById(paymentId)
+                            .orElseThrow(() -> new ResourceNotFoundException("Payment not found"));
+                    captured.setStatus(Payment.PaymentStatus.COMPLETED);
+                    captured.setTransactionId(razorpayPaymentId);
+                    captured.setPaymentDetails("Razorpay Payment Verified: " + captureDetails.get("id"));
+                    return paymentRepository.save(captured);
+                }), paymentGatewayClient.callbackExecutor());
     }
 
     /**
      * Create Razorpay order for payment
      */
-    public Map<String, Object> createRazorpayOrder(Long orderId) {
+    public CompletableFuture<Map<String, Object>> createRazorpayOrder(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
 
-        return razorpayService.createPaymentOrder(order.getTotalAmount(), "INR");
+        return paymentGatewayClient.createOrder(order.getTotalAmount(), "INR");
     }
 }
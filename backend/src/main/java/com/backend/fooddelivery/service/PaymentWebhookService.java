@@ -0,0 +1,265 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.exception.BadRequestException;
+import com.backend.fooddelivery.model.Payment;
+import com.backend.fooddelivery.model.PaymentWebhookEvent;
+import com.backend.fooddelivery.repository.PaymentRepository;
+import com.backend.fooddelivery.repository.PaymentWebhookEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Payment Webhook Service - Verifies, stores and applies payment gateway webhooks
+ *
+ * The request thread verifies the signature and inserts the raw event into the
+ * payment_webhook_events inbox (unique on the gateway event ID); the gateway is only
+ * acknowledged once that insert has committed, so a crash or restart never loses an event.
+ * A scheduled drain applies stored events in batches, one transaction per batch, and falls back
+ * to one transaction per event when a batch fails so a single bad event cannot hold back the rest.
+ */
+@Service
+public class PaymentWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookService.class);
+
+    @Autowired
+    private RazorpayService razorpayService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentWebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${payment.webhook.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payment.webhook.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${payment.webhook.seen-cache-size:100000}")
+    private long seenCacheSize;
+
+    // Recently stored event IDs - bounded, the unique index is the durable check
+    private Cache<String, Boolean> seenEventIds;
+
+    @PostConstruct
+    public void init() {
+        seenEventIds = Caffeine.newBuilder()
+                .maximumSize(seenCacheSize)
+                .expireAfterWrite(Duration.ofHours(24))
+                .build();
+    }
+
+    /**
+     * Verify and store a webhook, returns false if it is a redelivery of a stored event
+     */
+    public boolean receive(String eventId, String signature, String payload) {
+        if (!razorpayService.verifyWebhookSignature(payload, signature)) {
+            throw new BadRequestException("Invalid webhook signature");
+        }
+        if (eventId == null || eventId.isBlank()) {
+            throw new BadRequestException("Missing webhook event ID");
+        }
+        PaymentWebhookEvent event = parse(eventId, payload);
+        if (seenEventIds.getIfPresent(eventId) != null) {
+            return false;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> webhookEventRepository.save(event));
+        } catch (DataIntegrityViolationException e) {
+            if (!webhookEventRepository.existsByEventId(eventId)) {
+                throw e;
+            }
+            // Stored earlier, possibly by another node
+            seenEventIds.put(eventId, Boolean.TRUE);
+            return false;
+        }
+        seenEventIds.put(eventId, Boolean.TRUE);
+        return true;
+    }
+
+    /**
+     * Apply stored webhooks in batches
+     */
+    @Scheduled(fixedDelayString = "${payment.webhook.flush-interval-ms:500}")
+    public void drain() {
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = webhookEventRepository.findReceivedIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return;
+            }
+            afterId = ids.get(ids.size() - 1);
+
+            List<Long> batch = ids;
+            try {
+                Integer applied = transactionTemplate.execute(tx -> apply(batch));
+                logger.debug("Applied {} of {} payment webhooks", applied, batch.size());
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to apply a batch of {} payment webhooks, retrying one at a time", batch.size(), ex);
+                batch.forEach(this::applyOne);
+            }
+        } while (ids.size() == batchSize);
+    }
+
+    /**
+     * Apply a single event in its own transaction, counting the attempt if it fails
+     */
+    private void applyOne(Long id) {
+        try {
+            transactionTemplate.execute(tx -> apply(List.of(id)));
+        } catch (RuntimeException ex) {
+            logger.error("Failed to apply payment webhook {}", id, ex);
+            try {
+                transactionTemplate.executeWithoutResult(tx -> webhookEventRepository.findById(id)
+                        .filter(event -> event.getStatus() == PaymentWebhookEvent.Status.RECEIVED)
+                        .ifPresent(event -> {
+                            event.setAttempts(event.getAttempts() + 1);
+                            if (event.getAttempts() >= maxAttempts) {
+                                event.setStatus(PaymentWebhookEvent.Status.FAILED);
+                                logger.error("Giving up on payment webhook {} after {} attempts",
+                                        event.getEventId(), event.getAttempts());
+                            }
+                        }));
+            } catch (RuntimeException countEx) {
+                logger.error("Failed to record attempt for payment webhook {}", id, countEx);
+            }
+        }
+    }
+
+    /**
+     * Apply stored events inside a transaction, returns the number of payments updated
+     */
+    private int apply(List<Long> ids) {
+        // Events another node applied meanwhile are no longer RECEIVED and drop out here
+        List<PaymentWebhookEvent> events = webhookEventRepository.lockReceived(ids);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Payments are referenced by the gateway order ID until verified, by the payment ID afterwards
+        Set<String> references = new HashSet<>();
+        for (PaymentWebhookEvent event : events) {
+            if (event.getGatewayOrderId() != null) {
+                references.add(event.getGatewayOrderId());
+            }
+            if (event.getGatewayPaymentId() != null) {
+                references.add(event.getGatewayPaymentId());
+            }
+        }
+        Map<String, Payment> payments = new HashMap<>();
+        for (Payment payment : paymentRepository.findByTransactionIdIn(references)) {
+            payments.put(payment.getTransactionId(), payment);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Payment> updated = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PaymentWebhookEvent event : events) {
+            Payment payment = payments.get(event.getGatewayPaymentId());
+            if (payment == null) {
+                payment = payments.get(event.getGatewayOrderId());
+            }
+            if (payment != null && applyStatus(payment, event)) {
+                updated.add(payment);
+            }
+
+            event.setPaymentId(payment != null ? payment.getId() : null);
+            event.setStatus(PaymentWebhookEvent.Status.PROCESSED);
+            event.setProcessedAt(now);
+        }
+
+        webhookEventRepository.saveAll(events);
+        paymentRepository.saveAll(updated);
+        return updated.size();
+    }
+
+    /**
+     * Move a payment to the status implied by the event, never back from a final state
+     */
+    private static boolean applyStatus(Payment payment, PaymentWebhookEvent event) {
+        Payment.PaymentStatus target = switch (event.getEventType()) {
+            case "payment.captured", "order.paid" -> Payment.PaymentStatus.COMPLETED;
+            case "payment.failed" -> Payment.PaymentStatus.FAILED;
+            case "refund.processed", "payment.refunded" -> Payment.PaymentStatus.REFUNDED;
+            default -> null;
+        };
+        if (target == null || target == payment.getStatus()) {
+            return false;
+        }
+
+        Payment.PaymentStatus current = payment.getStatus();
+        boolean allowed = switch (target) {
+            case COMPLETED -> current == Payment.PaymentStatus.PENDING || current == Payment.PaymentStatus.FAILED;
+            case FAILED -> current == Payment.PaymentStatus.PENDING;
+            case REFUNDED -> current == Payment.PaymentStatus.COMPLETED;
+            default -> false;
+        };
+        if (!allowed) {
+            return false;
+        }
+
+        payment.setStatus(target);
+        if (target == Payment.PaymentStatus.COMPLETED && event.getGatewayPaymentId() != null) {
+            payment.setTransactionId(event.getGatewayPaymentId());
+        }
+        payment.setPaymentDetails("Razorpay webhook: " + event.getEventType());
+        return true;
+    }
+
+    private PaymentWebhookEvent parse(String eventId, String payload) {
+        try {
+            JsonNode root = objectMapper.readTree(payload);
+            String eventType = root.path("event").asText(null);
+            if (eventType == null) {
+                throw new BadRequestException("Missing webhook event type");
+            }
+            JsonNode payment = root.path("payload").path("payment").path("entity");
+            JsonNode refund = root.path("payload").path("refund").path("entity");
+            String gatewayPaymentId = payment.path("id").asText(refund.path("payment_id").asText(null));
+            String gatewayOrderId = payment.path("order_id").asText(
+                    root.path("payload").path("order").path("entity").path("id").asText(null));
+
+            PaymentWebhookEvent event = new PaymentWebhookEvent();
+            event.setEventId(eventId);
+            event.setEventType(eventType);
+            event.setGatewayOrderId(gatewayOrderId);
+            event.setGatewayPaymentId(gatewayPaymentId);
+            event.setPayload(payload);
+            return event;
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed webhook payload");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.backend.fooddelivery.service;
 
+import com.backend.fooddelivery.util.HmacSha256Verifier;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -11,6 +13,7 @@ import java.util.UUID;
  * Razorpay Payment Gateway Service (Mock Implementation)
  * This is a mock service that simulates Razorpay payment gateway integration
  * In production, this would use the actual Razorpay SDK
+ * Payment and webhook signatures are verified for real (HMAC-SHA256)
  */
 @Service
 public class RazorpayService {
@@ -21,6 +24,18 @@ public class RazorpayService {
     @Value("${razorpay.key.secret:rzp_test_mock_secret}")
     private String razorpayKeySecret;
 
+    @Value("${razorpay.webhook-secret:rzp_test_webhook_secret}")
+    private String razorpayWebhookSecret;
+
+    private HmacSha256Verifier paymentSignatureVerifier;
+    private HmacSha256Verifier webhookSignatureVerifier;
+
+    @PostConstruct
+    public void init() {
+        paymentSignatureVerifier = new HmacSha256Verifier(razorpayKeySecret);
+        webhookSignatureVerifier = new HmacSha256Verifier(razorpayWebhookSecret);
+    }
+
     /**
      * Create a payment order in Razorpay
      * @param amount Amount in rupees
@@ -43,29 +58,24 @@ public class RazorpayService {
     }
 
     /**
-     * Verify payment signature (mock implementation)
+     * Verify payment signature (HMAC-SHA256 of "orderId|paymentId" with the key secret, hex encoded)
      * @param razorpayOrderId Order ID from Razorpay
      * @param razorpayPaymentId Payment ID from Razorpay
      * @param razorpaySignature Signature from Razorpay
-     * @return true if signature is valid (mock always returns true)
+     * @return true if the signature matches the configured key secret
      */
     public boolean verifyPaymentSignature(String razorpayOrderId, String razorpayPaymentId, String razorpaySignature) {
-        // In production, this would verify the signature using HMAC SHA256
-        // Mock implementation - always returns true for demo purposes
-        if (razorpayOrderId == null || razorpayPaymentId == null || razorpaySignature == null) {
-            return false;
-        }
-        
-        // Mock signature verification
-        String expectedSignature = generateMockSignature(razorpayOrderId, razorpayPaymentId);
-        return expectedSignature.equals(razorpaySignature) || razorpaySignature.startsWith("sig_");
+        return paymentSignatureVerifier.verify(razorpayOrderId, razorpayPaymentId, razorpaySignature);
     }
 
     /**
-     * Generate mock signature for testing
+     * Verify the X-Razorpay-Signature header of a webhook (HMAC-SHA256 of the raw body, hex encoded)
+     * @param payload Raw request body
+     * @param signature Signature header value
+     * @return true if the signature matches the configured webhook secret
      */
-    private String generateMockSignature(String orderId, String paymentId) {
-        return "sig_" + orderId.substring(0, 8) + paymentId.substring(0, 8);
+    public boolean verifyWebhookSignature(String payload, String signature) {
+        return webhookSignatureVerifier.verify(payload, signature);
     }
 
     /**
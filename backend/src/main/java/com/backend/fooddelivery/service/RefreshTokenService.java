@@ -0,0 +1,145 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.exception.UnauthorizedException;
+import com.backend.fooddelivery.model.RefreshToken;
+import com.backend.fooddelivery.repository.RefreshTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Refresh Token Service - Issues and rotates opaque refresh tokens
+ *
+ * Tokens are random 256-bit values; only their SHA-256 hash is stored. Recently issued tokens
+ * are kept in an in-memory cache so a refresh normally needs no lookup, only the conditional
+ * update that marks the token used, which also decides races between concurrent refreshes.
+ * Presenting a token that was already used revokes every token of that user, since one of
+ * the two parties holding it is not the legitimate client.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    @Value("${jwt.refresh-cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Token hash -> owner of an unused token
+    private Cache<String, CachedToken> hotTokens;
+
+    @PostConstruct
+    public void init() {
+        hotTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(refreshExpiration))
+                .build();
+    }
+
+    /**
+     * Issue a new refresh token for a user
+     */
+    public String issue(Long userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(refreshExpiration));
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setUserId(userId);
+        refreshToken.setExpiresAt(expiresAt);
+        refreshTokenRepository.save(refreshToken);
+
+        hotTokens.put(refreshToken.getTokenHash(), new CachedToken(userId, toMillis(expiresAt)));
+        return token;
+    }
+
+    /**
+     * Use up a refresh token, returns the ID of the user it was issued to
+     */
+    public Long consume(String token) {
+        String tokenHash = hash(token);
+        CachedToken cached = hotTokens.getIfPresent(tokenHash);
+        if (cached == null) {
+            RefreshToken stored = refreshTokenRepository.findByTokenHash(tokenHash)
+                    .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+            cached = new CachedToken(stored.getUserId(), toMillis(stored.getExpiresAt()));
+        }
+        if (cached.expiresAtMillis() < System.currentTimeMillis()) {
+            hotTokens.invalidate(tokenHash);
+            throw new UnauthorizedException("Refresh token expired");
+        }
+
+        hotTokens.invalidate(tokenHash);
+        Integer updated = transactionTemplate.execute(tx -> refreshTokenRepository.markUsed(tokenHash, LocalDateTime.now()));
+        if (updated == null || updated == 0) {
+            revokeAll(cached.userId());
+            logger.warn("Refresh token reuse detected for user {}, all refresh tokens revoked", cached.userId());
+            throw new UnauthorizedException("Refresh token already used");
+        }
+        return cached.userId();
+    }
+
+    /**
+     * Revoke all unused refresh tokens of a user
+     */
+    public void revokeAll(Long userId) {
+        transactionTemplate.executeWithoutResult(tx -> refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now()));
+        hotTokens.asMap().values().removeIf(cached -> cached.userId().equals(userId));
+    }
+
+    /**
+     * Delete expired tokens
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-cleanup-interval-ms:3600000}", initialDelayString = "${jwt.refresh-cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        Integer deleted = transactionTemplate.execute(tx -> refreshTokenRepository.deleteExpired(LocalDateTime.now()));
+        logger.debug("Deleted {} expired refresh tokens", deleted);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record CachedToken(Long userId, long expiresAtMillis) {
+    }
+}
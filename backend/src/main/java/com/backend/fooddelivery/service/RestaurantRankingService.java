@@ -0,0 +1,416 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.dto.request.RestaurantRankingRequest;
+import com.backend.fooddelivery.dto.response.RestaurantResponse;
+import com.backend.fooddelivery.exception.BadRequestException;
+import com.backend.fooddelivery.model.Restaurant;
+import com.backend.fooddelivery.repository.MenuItemRepository;
+import com.backend.fooddelivery.repository.RestaurantRepository;
+import com.backend.fooddelivery.util.RestaurantMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Restaurant Ranking Service - Scores restaurants by relevance to the caller
+ *
+ * Candidates are kept in a columnar snapshot of primitive arrays that is refreshed periodically.
+ * Large candidate sets are scored with a fork-join split, each leaf keeping its own bounded
+ * top-k heap, and the partial heaps are merged on the way back up.
+ */
+@Service
+public class RestaurantRankingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantRankingService.class);
+
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    // Deepest rank that is ever materialized; pages beyond it are not served
+    public static final int MAX_LIMIT = 500;
+
+    // Score weights
+    private static final double DISTANCE_WEIGHT = 0.35;
+    private static final double RATING_WEIGHT = 0.25;
+    private static final double DELIVERY_TIME_WEIGHT = 0.15;
+    private static final double OPEN_WEIGHT = 0.10;
+    private static final double REVIEWS_WEIGHT = 0.10;
+    private static final double POPULARITY_WEIGHT = 0.05;
+
+    private static final double DISTANCE_HALF_SCORE_KM = 3.0;
+    private static final double MAX_DELIVERY_MINUTES = 90.0;
+    private static final double PRIOR_RATING = 3.5;
+    private static final double PRIOR_REVIEWS = 10.0;
+    private static final double REVIEWS_SATURATION = Math.log1p(1000);
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private OpenHoursIndex openHoursIndex;
+
+    @Autowired
+    private DeliveryTimeEstimator deliveryTimeEstimator;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Rebuild the candidate snapshot from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ranking.refresh-interval-ms:60000}", initialDelayString = "${ranking.refresh-interval-ms:60000}")
+    public void refreshSnapshot() {
+        List<Object[]> rows = restaurantRepository.findRankingAttributesOfActiveRestaurants();
+
+        Map<Long, Long> popularity = new HashMap<>();
+        for (Object[] row : menuItemRepository.sumOrderCountByRestaurant()) {
+            popularity.put((Long) row[0], row[1] != null ? ((Number) row[1]).longValue() : 0L);
+        }
+
+        snapshot = Snapshot.of(rows, popularity, deliveryTimeEstimator);
+        logger.debug("Ranking snapshot refreshed with {} restaurants", rows.size());
+    }
+
+    /**
+     * Rank active restaurants for a caller, cached per (geo cell, filters)
+     */
+    @Cacheable(value = "rankedRestaurants", key = "#request.cacheKey()")
+    public RankedRestaurants rankRestaurants(RestaurantRankingRequest request) {
+        RestaurantRankingRequest cell = request.toGeoCell();
+        int limit = Math.min(cell.getLimit() != null ? cell.getLimit() : 20, MAX_LIMIT);
+
+        Restaurant.PriceRange priceRange = null;
+        if (cell.getPriceRange() != null) {
+            try {
+                priceRange = Restaurant.PriceRange.valueOf(cell.getPriceRange().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid price range. Must be: LOW, MEDIUM, or HIGH");
+            }
+        }
+
+        Snapshot current = snapshot;
+        Criteria criteria = new Criteria(current, cell, priceRange, openHoursIndex.getOpenBitmap());
+
+        TopK top = current.size > PARALLEL_THRESHOLD
+                ? ForkJoinPool.commonPool().invoke(new ScoringTask(criteria, 0, current.size, limit))
+                : score(criteria, 0, current.size, limit);
+
+        int matches = top.matches;
+        return new RankedRestaurants(toResponses(current, criteria, top.drainDescending()), matches);
+    }
+
+    private List<RestaurantResponse> toResponses(Snapshot current, Criteria criteria, int[] ranked) {
+        List<Long> ids = new ArrayList<>(ranked.length);
+        for (int index : ranked) {
+            ids.add(current.ids[index]);
+        }
+
+        Map<Long, Restaurant> restaurants = new HashMap<>();
+        restaurantRepository.findAllById(ids).forEach(r -> restaurants.put(r.getId(), r));
+
+        List<RestaurantResponse> responses = new ArrayList<>(ranked.length);
+        for (int index : ranked) {
+            Restaurant restaurant = restaurants.get(current.ids[index]);
+            if (restaurant == null || !restaurant.getIsActive()) {
+                continue;
+            }
+            Double distance = criteria.hasLocation ? criteria.distanceKm(index) : null;
+            RestaurantResponse response = RestaurantMapper.toRestaurantResponseWithDistance(restaurant, distance);
+            response.setIsCurrentlyOpen(openHoursIndex.isOpenNow(restaurant.getId()));
+            response.setEstimatedDeliveryMinutes(current.deliveryTimes[index]);
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * Score a slice of the snapshot into a bounded heap
+     */
+    private static TopK score(Criteria criteria, int from, int to, int limit) {
+        TopK top = new TopK(limit);
+        for (int i = from; i < to; i++) {
+            if (criteria.matches(i)) {
+                top.offer(criteria.score(i), i);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Fork-join scoring task
+     */
+    private static class ScoringTask extends RecursiveTask<TopK> {
+
+        private final Criteria criteria;
+        private final int from;
+        private final int to;
+        private final int limit;
+
+        ScoringTask(Criteria criteria, int from, int to, int limit) {
+            this.criteria = criteria;
+            this.from = from;
+            this.to = to;
+            this.limit = limit;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return score(criteria, from, to, limit);
+            }
+            int mid = (from + to) >>> 1;
+            ScoringTask left = new ScoringTask(criteria, from, mid, limit);
+            left.fork();
+            TopK right = new ScoringTask(criteria, mid, to, limit).compute();
+            return right.merge(left.join());
+        }
+    }
+
+    /**
+     * Filters and scoring function bound to one snapshot and one request
+     */
+    private static class Criteria {
+
+        private final Snapshot s;
+        private final boolean hasLocation;
+        private final double latRad;
+        private final double lon;
+        private final double cosLat;
+        private final double maxDistanceKm;
+        private final String cuisineType;
+        private final boolean vegetarianOnly;
+        private final int priceRange;
+        private final BitSet openNow;
+
+        Criteria(Snapshot s, RestaurantRankingRequest request, Restaurant.PriceRange priceRange,
+                BitSet openNow) {
+            this.s = s;
+            this.hasLocation = request.getLatitude() != null && request.getLongitude() != null;
+            this.latRad = hasLocation ? Math.toRadians(request.getLatitude()) : 0.0;
+            this.lon = hasLocation ? request.getLongitude() : 0.0;
+            this.cosLat = Math.cos(latRad);
+            this.maxDistanceKm = request.getMaxDistance() != null ? request.getMaxDistance() : Double.MAX_VALUE;
+            this.cuisineType = request.getCuisineType();
+            this.vegetarianOnly = Boolean.TRUE.equals(request.getVegetarianOnly());
+            this.priceRange = priceRange != null ? priceRange.ordinal() : -1;
+            this.openNow = openNow;
+        }
+
+        boolean matches(int i) {
+            if (vegetarianOnly && !s.vegetarianOnly[i]) {
+                return false;
+            }
+            if (priceRange >= 0 && s.priceRanges[i] != priceRange) {
+                return false;
+            }
+            if (cuisineType != null && !cuisineType.equalsIgnoreCase(s.cuisineTypes[i])) {
+                return false;
+            }
+            return !hasLocation || distanceKm(i) <= maxDistanceKm;
+        }
+
+        double score(int i) {
+            double distanceScore = hasLocation
+                    ? DISTANCE_HALF_SCORE_KM / (DISTANCE_HALF_SCORE_KM + distanceKm(i))
+                    : 0.5;
+
+            // Bayesian average so a single 5-star review does not beat hundreds of 4.6s
+            int reviews = s.totalReviews[i];
+            double ratingScore = (s.ratings[i] * reviews + PRIOR_RATING * PRIOR_REVIEWS)
+                    / (reviews + PRIOR_REVIEWS) / 5.0;
+            double reviewsScore = Math.min(1.0, Math.log1p(reviews) / REVIEWS_SATURATION);
+            double deliveryScore = 1.0 - Math.min(s.deliveryTimes[i], MAX_DELIVERY_MINUTES) / MAX_DELIVERY_MINUTES;
+            double openScore = openNow.get((int) s.ids[i]) ? 1.0 : 0.0;
+            double popularityScore = s.maxPopularityLog > 0 ? Math.log1p(s.popularity[i]) / s.maxPopularityLog : 0.0;
+
+            return DISTANCE_WEIGHT * distanceScore
+                    + RATING_WEIGHT * ratingScore
+                    + REVIEWS_WEIGHT * reviewsScore
+                    + DELIVERY_TIME_WEIGHT * deliveryScore
+                    + OPEN_WEIGHT * openScore
+                    + POPULARITY_WEIGHT * popularityScore;
+        }
+
+        /**
+         * Haversine distance in km
+         */
+        double distanceKm(int i) {
+            double lat2 = s.latitudesRad[i];
+            double dLat = lat2 - latRad;
+            double dLon = Math.toRadians(s.longitudes[i] - lon);
+            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                    + cosLat * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        }
+    }
+
+    /**
+     * Bounded min-heap of (score, snapshot index) pairs
+     */
+    private static class TopK {
+
+        private final double[] scores;
+        private final int[] indexes;
+        private int size;
+
+        // Number of candidates offered, including those that did not make the top k
+        private int matches;
+
+        TopK(int capacity) {
+            this.scores = new double[Math.max(capacity, 1)];
+            this.indexes = new int[Math.max(capacity, 1)];
+        }
+
+        void offer(double score, int index) {
+            matches++;
+            if (size < scores.length) {
+                scores[size] = score;
+                indexes[size] = index;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                scores[0] = score;
+                indexes[0] = index;
+                siftDown(0);
+            }
+        }
+
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.scores[i], other.indexes[i]);
+            }
+            matches += other.matches - other.size;
+            return this;
+        }
+
+        /**
+         * Empty the heap, best score first
+         */
+        int[] drainDescending() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = indexes[0];
+                size--;
+                scores[0] = scores[size];
+                indexes[0] = indexes[size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            int index = indexes[a];
+            indexes[a] = indexes[b];
+            indexes[b] = index;
+        }
+    }
+
+    /**
+     * Top-ranked restaurants plus the number of candidates that matched the filters
+     */
+    public record RankedRestaurants(List<RestaurantResponse> restaurants, int totalMatches) {
+    }
+
+    /**
+     * Columnar snapshot of ranking attributes
+     */
+    private static class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(0);
+
+        final int size;
+        final long[] ids;
+        final double[] latitudesRad;
+        final double[] longitudes;
+        final double[] ratings;
+        final int[] totalReviews;
+        final int[] deliveryTimes;
+        final String[] cuisineTypes;
+        final boolean[] vegetarianOnly;
+        final int[] priceRanges;
+        final long[] popularity;
+        double maxPopularityLog;
+
+        Snapshot(int size) {
+            this.size = size;
+            this.ids = new long[size];
+            this.latitudesRad = new double[size];
+            this.longitudes = new double[size];
+            this.ratings = new double[size];
+            this.totalReviews = new int[size];
+            this.deliveryTimes = new int[size];
+            this.cuisineTypes = new String[size];
+            this.vegetarianOnly = new boolean[size];
+            this.priceRanges = new int[size];
+            this.popularity = new long[size];
+        }
+
+        /**
+         * Each row is [id, latitude, longitude, rating, totalReviews, averageDeliveryTime,
+         * cuisineType, isVegetarianOnly, priceRange]
+         */
+        static Snapshot of(List<Object[]> rows, Map<Long, Long> popularity, DeliveryTimeEstimator estimator) {
+            Snapshot s = new Snapshot(rows.size());
+            long maxPopularity = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                s.ids[i] = (Long) row[0];
+                s.latitudesRad[i] = Math.toRadians((Double) row[1]);
+                s.longitudes[i] = (Double) row[2];
+                s.ratings[i] = row[3] != null ? (Double) row[3] : 0.0;
+                s.totalReviews[i] = row[4] != null ? (Integer) row[4] : 0;
+                s.deliveryTimes[i] = estimator.estimateMinutes(s.ids[i], row[5] != null ? (Integer) row[5] : 30);
+                s.cuisineTypes[i] = (String) row[6];
+                s.vegetarianOnly[i] = Boolean.TRUE.equals(row[7]);
+                s.priceRanges[i] = row[8] != null ? ((Restaurant.PriceRange) row[8]).ordinal() : -1;
+                s.popularity[i] = popularity.getOrDefault(s.ids[i], 0L);
+                maxPopularity = Math.max(maxPopularity, s.popularity[i]);
+            }
+            s.maxPopularityLog = Math.log1p(maxPopularity);
+            return s;
+        }
+    }
+}
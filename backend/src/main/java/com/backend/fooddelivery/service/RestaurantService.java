@@ -1,6 +1,7 @@
 package com.backend.fooddelivery.service;
 
 import com.backend.fooddelivery.dto.request.CreateRestaurantRequest;
+import com.backend.fooddelivery.dto.request.RestaurantRankingRequest;
 import com.backend.fooddelivery.dto.request.UpdateRestaurantRequest;
 import com.backend.fooddelivery.dto.response.RestaurantResponse;
 import com.backend.fooddelivery.exception.BadRequestException;
@@ -8,20 +9,24 @@ import com.backend.fooddelivery.exception.ResourceNotFoundException;
 import com.backend.fooddelivery.model.Restaurant;
 import com.backend.fooddelivery.model.User;
 import com.backend.fooddelivery.repository.RestaurantRepository;
-import com.backend.fooddelivery.repository.UserRepository;
+import com.backend.fooddelivery.security.CurrentUserResolver;
 import com.backend.fooddelivery.util.RestaurantMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -30,21 +35,52 @@ import java.util.stream.Collectors;
 @Service
 public class RestaurantService {
 
+    // Upper bound on IDs bound into a single IN list
+    private static final int ID_BATCH_SIZE = 1000;
+
     @Autowired
     private RestaurantRepository restaurantRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
     @Autowired
     private FileUploadService fileUploadService;
 
+    @Autowired
+    private OpenHoursIndex openHoursIndex;
+
+    @Autowired
+    private RestaurantRankingService restaurantRankingService;
+
+    @Autowired
+    private DeliveryTimeEstimator deliveryTimeEstimator;
+
     /**
      * Get all active restaurants with pagination
      */
     public Page<RestaurantResponse> getAllRestaurants(Pageable pageable) {
         return restaurantRepository.findByIsActiveTrue(pageable)
-                .map(RestaurantMapper::toRestaurantResponse);
+                .map(this::toResponse);
+    }
+
+    /**
+     * Get active restaurants ranked by relevance to the caller
+     */
+    public Page<RestaurantResponse> getRankedRestaurants(RestaurantRankingRequest request, Pageable pageable) {
+        int maxRank = RestaurantRankingService.MAX_LIMIT;
+        if (pageable.getOffset() >= maxRank) {
+            throw new BadRequestException("Ranked results are limited to the top " + maxRank + " restaurants");
+        }
+
+        request.setLimit((int) Math.min(pageable.getOffset() + pageable.getPageSize(), maxRank));
+        RestaurantRankingService.RankedRestaurants ranked = restaurantRankingService.rankRestaurants(request);
+        List<RestaurantResponse> restaurants = ranked.restaurants();
+
+        // The total is capped at the deepest rank served so page metadata never points past it
+        int from = (int) Math.min(pageable.getOffset(), restaurants.size());
+        int to = Math.min(from + pageable.getPageSize(), restaurants.size());
+        return new PageImpl<>(restaurants.subList(from, to), pageable, Math.min(ranked.totalMatches(), maxRank));
     }
 
     /**
@@ -54,7 +90,7 @@ public class RestaurantService {
     public RestaurantResponse getRestaurantById(Long id) {
         Restaurant restaurant = restaurantRepository.findByIdAndIsActiveTrue(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with id: " + id));
-        return RestaurantMapper.toRestaurantResponse(restaurant);
+        return toResponse(restaurant);
     }
 
     /**
@@ -62,7 +98,7 @@ public class RestaurantService {
      */
     public Page<RestaurantResponse> searchRestaurants(String name, Pageable pageable) {
         return restaurantRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(name, pageable)
-                .map(RestaurantMapper::toRestaurantResponse);
+                .map(this::toResponse);
     }
 
     /**
@@ -70,7 +106,7 @@ public class RestaurantService {
      */
     public Page<RestaurantResponse> getRestaurantsByCuisine(String cuisineType, Pageable pageable) {
         return restaurantRepository.findByCuisineTypeAndIsActiveTrue(cuisineType, pageable)
-                .map(RestaurantMapper::toRestaurantResponse);
+                .map(this::toResponse);
     }
 
     /**
@@ -78,7 +114,7 @@ public class RestaurantService {
      */
     public Page<RestaurantResponse> getVegetarianRestaurants(Pageable pageable) {
         return restaurantRepository.findByIsVegetarianOnlyTrueAndIsActiveTrue(pageable)
-                .map(RestaurantMapper::toRestaurantResponse);
+                .map(this::toResponse);
     }
 
     /**
@@ -86,7 +122,7 @@ public class RestaurantService {
      */
     public Page<RestaurantResponse> getRestaurantsByRating(Double minRating, Pageable pageable) {
         return restaurantRepository.findByRatingGreaterThanEqualAndIsActiveTrue(minRating, pageable)
-                .map(RestaurantMapper::toRestaurantResponse);
+                .map(this::toResponse);
     }
 
     /**
@@ -101,7 +137,7 @@ public class RestaurantService {
         }
 
         return restaurantRepository.findByPriceRangeAndIsActiveTrue(range, pageable)
-                .map(RestaurantMapper::toRestaurantResponse);
+                .map(this::toResponse);
     }
 
     /**
@@ -114,7 +150,10 @@ public class RestaurantService {
                 .map(restaurant -> {
                     Double dist = calculateDistance(latitude, longitude, restaurant.getLatitude(),
                             restaurant.getLongitude());
-                    return RestaurantMapper.toRestaurantResponseWithDistance(restaurant, dist);
+                    RestaurantResponse response = RestaurantMapper.toRestaurantResponseWithDistance(restaurant, dist);
+                    response.setEstimatedDeliveryMinutes(deliveryTimeEstimator.estimateMinutes(
+                            restaurant.getId(), restaurant.getAverageDeliveryTime()));
+                    return response;
                 })
                 .collect(Collectors.toList());
     }
@@ -123,8 +162,34 @@ public class RestaurantService {
      * Get currently open restaurants
      */
     public Page<RestaurantResponse> getOpenRestaurants(Pageable pageable) {
-        return restaurantRepository.findOpenRestaurants(pageable)
-                .map(RestaurantMapper::toRestaurantResponse);
+        BitSet open = openHoursIndex.getOpenBitmap();
+        if (open.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        // Order the ID list in the database, filter it against the bitmap and only load the
+        // rows of the requested page, so the IN list never grows with the number of open restaurants
+        List<Long> openIds = restaurantRepository.findIdsOfActiveRestaurants(pageable.getSort().and(Sort.by("id")))
+                .stream()
+                .filter(id -> open.get(Math.toIntExact(id)))
+                .collect(Collectors.toList());
+
+        int from = (int) Math.min(pageable.getOffset(), openIds.size());
+        int to = Math.min(from + pageable.getPageSize(), openIds.size());
+        List<Long> pageIds = openIds.subList(from, to);
+
+        Map<Long, Restaurant> restaurants = new HashMap<>();
+        for (int i = 0; i < pageIds.size(); i += ID_BATCH_SIZE) {
+            restaurantRepository.findAllById(pageIds.subList(i, Math.min(i + ID_BATCH_SIZE, pageIds.size())))
+                    .forEach(r -> restaurants.put(r.getId(), r));
+        }
+
+        List<RestaurantResponse> content = pageIds.stream()
+                .map(restaurants::get)
+                .filter(Objects::nonNull)
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, openIds.size());
     }
 
     /**
@@ -132,9 +197,7 @@ public class RestaurantService {
      */
     @Transactional
     public RestaurantResponse createRestaurant(CreateRestaurantRequest request) {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
 
         // Validate price range
         Restaurant.PriceRange priceRange;
@@ -160,7 +223,8 @@ public class RestaurantService {
         restaurant.setIsActive(true);
 
         Restaurant savedRestaurant = restaurantRepository.save(restaurant);
-        return RestaurantMapper.toRestaurantResponse(savedRestaurant);
+        openHoursIndex.registerAfterCommit(savedRestaurant);
+        return toResponse(savedRestaurant);
     }
 
     /**
@@ -173,9 +237,7 @@ public class RestaurantService {
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with id: " + id));
 
         // Check ownership (only owner or admin can update)
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
 
         if (!restaurant.getOwnerId().equals(user.getId()) && user.getRole() != User.Role.ADMIN) {
             throw new BadRequestException("You don't have permission to update this restaurant");
@@ -201,7 +263,8 @@ public class RestaurantService {
         restaurant.setClosingTime(request.getClosingTime());
 
         Restaurant updatedRestaurant = restaurantRepository.save(restaurant);
-        return RestaurantMapper.toRestaurantResponse(updatedRestaurant);
+        openHoursIndex.registerAfterCommit(updatedRestaurant);
+        return toResponse(updatedRestaurant);
     }
 
     /**
@@ -226,7 +289,7 @@ public class RestaurantService {
         restaurant.setLogoUrl(filePath);
 
         Restaurant updatedRestaurant = restaurantRepository.save(restaurant);
-        return RestaurantMapper.toRestaurantResponse(updatedRestaurant);
+        return toResponse(updatedRestaurant);
     }
 
     /**
@@ -240,22 +303,31 @@ public class RestaurantService {
 
         restaurant.setIsActive(false);
         restaurantRepository.save(restaurant);
+        openHoursIndex.removeAfterCommit(id);
     }
 
     /**
      * Get restaurants by owner
      */
     public List<RestaurantResponse> getMyRestaurants() {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
 
         List<Restaurant> restaurants = restaurantRepository.findByOwnerId(user.getId());
         return restaurants.stream()
-                .map(RestaurantMapper::toRestaurantResponse)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Map restaurant to response with its learned delivery time estimate
+     */
+    private RestaurantResponse toResponse(Restaurant restaurant) {
+        RestaurantResponse response = RestaurantMapper.toRestaurantResponse(restaurant);
+        response.setEstimatedDeliveryMinutes(deliveryTimeEstimator.estimateMinutes(
+                restaurant.getId(), restaurant.getAverageDeliveryTime()));
+        return response;
+    }
+
     /**
      * Calculate distance between two points using Haversine formula
      */
@@ -276,20 +348,10 @@ public class RestaurantService {
      * Check if current user owns the restaurant
      */
     private void checkOwnership(Restaurant restaurant) {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
 
         if (!restaurant.getOwnerId().equals(user.getId()) && user.getRole() != User.Role.ADMIN) {
             throw new BadRequestException("You don't have permission to modify this restaurant");
         }
     }
-
-    /**
-     * Get current authenticated user's email
-     */
-    private String getCurrentUserEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
-    }
 }
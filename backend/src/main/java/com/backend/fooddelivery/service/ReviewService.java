@@ -10,12 +10,13 @@ import com.backend.fooddelivery.model.User;
 import com.backend.fooddelivery.repository.OrderRepository;
 import com.backend.fooddelivery.repository.RestaurantRepository;
 import com.backend.fooddelivery.repository.ReviewRepository;
-import com.backend.fooddelivery.repository.UserRepository;
+import com.backend.fooddelivery.security.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,16 +36,15 @@ public class ReviewService {
     private RestaurantRepository restaurantRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
     /**
      * Submit review for order
      */
     @Transactional
+    @CacheEvict(value = "restaurants", key = "#result.restaurantId")
     public Review submitReview(ReviewRequest request) {
-        String email = getCurrentUserEmail();
-        User customer = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User customer = currentUserResolver.getCurrentUser();
 
         Order order = orderRepository.findById(request.getOrderId())
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
@@ -74,7 +74,7 @@ public class ReviewService {
         Review savedReview = reviewRepository.save(review);
 
         // Update restaurant rating
-        updateRestaurantRating(order.getRestaurantId());
+        restaurantRepository.addRating(order.getRestaurantId(), request.getRating());
 
         return savedReview;
     }
@@ -87,24 +87,48 @@ public class ReviewService {
     }
 
     /**
-     * Update restaurant rating based on reviews
+     * Backfill rating aggregates for restaurants reviewed before they were maintained incrementally
      */
+    @EventListener(ApplicationReadyEvent.class)
     @Transactional
-    public void updateRestaurantRating(Long restaurantId) {
+    public void backfillRatingAggregates() {
+        for (Long restaurantId : restaurantRepository.findIdsWithMissingRatingAggregates()) {
+            rebuildRatingAggregates(restaurantId);
+        }
+    }
+
+    /**
+     * Recompute a restaurant's rating aggregates from its reviews
+     */
+    @Transactional
+    public void rebuildRatingAggregates(Long restaurantId) {
         Restaurant restaurant = restaurantRepository.findById(restaurantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found"));
 
-        Double avgRating = reviewRepository.calculateAverageRating(restaurantId);
-        Long totalReviews = reviewRepository.countByRestaurantId(restaurantId);
+        int[] histogram = new int[5];
+        for (Object[] row : reviewRepository.countByRatingForRestaurant(restaurantId)) {
+            int stars = (Integer) row[0];
+            if (stars >= 1 && stars <= 5) {
+                histogram[stars - 1] = ((Long) row[1]).intValue();
+            }
+        }
 
-        restaurant.setRating(avgRating != null ? avgRating : 0.0);
-        restaurant.setTotalReviews(totalReviews.intValue());
+        long sum = 0;
+        int count = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            sum += (long) (i + 1) * histogram[i];
+            count += histogram[i];
+        }
 
-        restaurantRepository.save(restaurant);
-    }
+        restaurant.setOneStarCount(histogram[0]);
+        restaurant.setTwoStarCount(histogram[1]);
+        restaurant.setThreeStarCount(histogram[2]);
+        restaurant.setFourStarCount(histogram[3]);
+        restaurant.setFiveStarCount(histogram[4]);
+        restaurant.setRatingSum(sum);
+        restaurant.setTotalReviews(count);
+        restaurant.setRating(count > 0 ? (double) sum / count : 0.0);
 
-    private String getCurrentUserEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
+        restaurantRepository.save(restaurant);
     }
 }
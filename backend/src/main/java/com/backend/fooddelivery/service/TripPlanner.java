@@ -0,0 +1,319 @@
+package com.backend.fooddelivery.service;
+
+import com.backend.fooddelivery.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trip Planner - Stacks ready orders into multi-order trips
+ *
+ * Orders are taken oldest first as trip seeds. Each seed pulls in unplanned orders whose
+ * pickup is within the pickup radius and whose drop-off lies in a similar direction, as long
+ * as the sequenced trip delays no order by more than the allowed minutes compared to
+ * delivering it alone. Pickups are visited nearest first, drop-offs in the order that
+ * minimises the total arrival time.
+ */
+@Service
+public class TripPlanner {
+
+    @Value("${dispatch.stacking.enabled:true}")
+    private boolean stackingEnabled;
+
+    @Value("${dispatch.stacking.max-orders:3}")
+    private int maxOrders;
+
+    @Value("${dispatch.stacking.pickup-radius-km:1.0}")
+    private double pickupRadiusKm;
+
+    @Value("${dispatch.stacking.max-bearing-difference:45.0}")
+    private double maxBearingDifference;
+
+    @Value("${dispatch.stacking.max-delay-minutes:10.0}")
+    private double maxDelayMinutes;
+
+    @Value("${dispatch.stacking.speed-kmph:20.0}")
+    private double speedKmph;
+
+    @Value("${dispatch.stacking.stop-minutes:2.0}")
+    private double stopMinutes;
+
+    /**
+     * Group orders into trips
+     * Each row is [orderId, pickupLatitude, pickupLongitude, dropoffLatitude, dropoffLongitude],
+     * drop-off coordinates may be null in which case the order always travels alone
+     */
+    public List<Trip> plan(List<Object[]> rows) {
+        int n = rows.size();
+        long[] orderIds = new long[n];
+        double[] pickupLat = new double[n];
+        double[] pickupLon = new double[n];
+        double[] dropLat = new double[n];
+        double[] dropLon = new double[n];
+        boolean[] hasDrop = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            orderIds[i] = (Long) row[0];
+            pickupLat[i] = (Double) row[1];
+            pickupLon[i] = (Double) row[2];
+            hasDrop[i] = row[3] != null && row[4] != null;
+            if (hasDrop[i]) {
+                dropLat[i] = (Double) row[3];
+                dropLon[i] = (Double) row[4];
+            }
+        }
+
+        List<Trip> trips = new ArrayList<>();
+        if (!stackingEnabled || maxOrders < 2) {
+            for (int i = 0; i < n; i++) {
+                trips.add(Trip.single(orderIds[i], pickupLat[i], pickupLon[i]));
+            }
+            return trips;
+        }
+
+        // Pickup grid with cells as wide as the pickup radius, so a 3x3 neighbourhood covers it.
+        // A degree of longitude shrinks by cos(lat), so longitude cells are widened for the most
+        // poleward pickup in the batch, which keeps them at least one radius wide everywhere
+        double maxAbsLat = 0;
+        for (int i = 0; i < n; i++) {
+            if (hasDrop[i]) {
+                maxAbsLat = Math.max(maxAbsLat, Math.abs(pickupLat[i]));
+            }
+        }
+        double latCellDegrees = pickupRadiusKm / 111.0;
+        double lonCellDegrees = latCellDegrees / Math.max(Math.cos(Math.toRadians(maxAbsLat)), 0.1);
+        Map<Long, List<Integer>> grid = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (hasDrop[i]) {
+                grid.computeIfAbsent(cellKey(pickupLat[i], pickupLon[i], latCellDegrees, lonCellDegrees, 0, 0),
+                        k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        boolean[] planned = new boolean[n];
+        for (int seed = 0; seed < n; seed++) {
+            if (planned[seed]) {
+                continue;
+            }
+            planned[seed] = true;
+            if (!hasDrop[seed]) {
+                trips.add(Trip.single(orderIds[seed], pickupLat[seed], pickupLon[seed]));
+                continue;
+            }
+
+            double seedBearing = GeoUtils.bearingDegrees(pickupLat[seed], pickupLon[seed], dropLat[seed], dropLon[seed]);
+            List<Integer> candidates = new ArrayList<>();
+            List<Double> candidateDistances = new ArrayList<>();
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    List<Integer> cell = grid.get(cellKey(pickupLat[seed], pickupLon[seed], latCellDegrees,
+                            lonCellDegrees, dr, dc));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int j : cell) {
+                        if (planned[j]) {
+                            continue;
+                        }
+                        double d = GeoUtils.distanceKm(pickupLat[seed], pickupLon[seed], pickupLat[j], pickupLon[j]);
+                        double bearing = GeoUtils.bearingDegrees(pickupLat[j], pickupLon[j], dropLat[j], dropLon[j]);
+                        if (d <= pickupRadiusKm && GeoUtils.bearingDifference(seedBearing, bearing) <= maxBearingDifference) {
+                            insertSorted(candidates, candidateDistances, j, d);
+                        }
+                    }
+                }
+            }
+
+            List<Integer> members = new ArrayList<>();
+            members.add(seed);
+            Route route = sequence(members, pickupLat, pickupLon, dropLat, dropLon);
+            for (int j : candidates) {
+                if (members.size() >= maxOrders) {
+                    break;
+                }
+                members.add(j);
+                Route candidate = sequence(members, pickupLat, pickupLon, dropLat, dropLon);
+                if (candidate.maxDelayMinutes <= maxDelayMinutes) {
+                    route = candidate;
+                    planned[j] = true;
+                } else {
+                    members.remove(members.size() - 1);
+                }
+            }
+
+            long[] ids = new long[members.size()];
+            for (int k = 0; k < ids.length; k++) {
+                ids[k] = orderIds[members.get(k)];
+            }
+            int first = members.get(route.pickupOrder[0]);
+            trips.add(new Trip(ids, route.pickupSequence(), route.dropoffSequence(),
+                    pickupLat[first], pickupLon[first], route.totalMinutes));
+        }
+        return trips;
+    }
+
+    /**
+     * Order the stops of a trip: pickups nearest-first from the seed, then the drop-off
+     * permutation with the lowest sum of arrival times
+     */
+    private Route sequence(List<Integer> members, double[] pickupLat, double[] pickupLon,
+            double[] dropLat, double[] dropLon) {
+        int m = members.size();
+        int[] pickupOrder = new int[m];
+        boolean[] visited = new boolean[m];
+        pickupOrder[0] = 0;
+        visited[0] = true;
+        double clock = 0;
+        for (int step = 1; step < m; step++) {
+            int from = members.get(pickupOrder[step - 1]);
+            int best = -1;
+            double bestKm = Double.MAX_VALUE;
+            for (int k = 0; k < m; k++) {
+                if (visited[k]) {
+                    continue;
+                }
+                int to = members.get(k);
+                double km = GeoUtils.distanceKm(pickupLat[from], pickupLon[from], pickupLat[to], pickupLon[to]);
+                if (km < bestKm) {
+                    bestKm = km;
+                    best = k;
+                }
+            }
+            clock += stopMinutes + travelMinutes(bestKm);
+            pickupOrder[step] = best;
+            visited[best] = true;
+        }
+        int last = members.get(pickupOrder[m - 1]);
+        double pickupsDone = clock + stopMinutes;
+
+        Route best = null;
+        int[] permutation = new int[m];
+        for (int k = 0; k < m; k++) {
+            permutation[k] = k;
+        }
+        do {
+            double time = pickupsDone;
+            double sumArrival = 0;
+            double maxDelay = 0;
+            double fromLat = pickupLat[last];
+            double fromLon = pickupLon[last];
+            for (int k : permutation) {
+                int order = members.get(k);
+                time += travelMinutes(GeoUtils.distanceKm(fromLat, fromLon, dropLat[order], dropLon[order]));
+                sumArrival += time;
+                double alone = stopMinutes + travelMinutes(GeoUtils.distanceKm(pickupLat[order], pickupLon[order],
+                        dropLat[order], dropLon[order]));
+                maxDelay = Math.max(maxDelay, time - alone);
+                fromLat = dropLat[order];
+                fromLon = dropLon[order];
+                time += stopMinutes;
+            }
+            if (best == null || sumArrival < best.sumArrivalMinutes) {
+                best = new Route(pickupOrder, permutation.clone(), time, sumArrival, maxDelay);
+            }
+        } while (nextPermutation(permutation));
+        return best;
+    }
+
+    private double travelMinutes(double straightKm) {
+        return straightKm * GeoUtils.ROAD_FACTOR / speedKmph * 60.0;
+    }
+
+    private static void insertSorted(List<Integer> items, List<Double> keys, int item, double key) {
+        int pos = keys.size();
+        while (pos > 0 && keys.get(pos - 1) > key) {
+            pos--;
+        }
+        items.add(pos, item);
+        keys.add(pos, key);
+    }
+
+    private static boolean nextPermutation(int[] a) {
+        int i = a.length - 2;
+        while (i >= 0 && a[i] >= a[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = a.length - 1;
+        while (a[j] <= a[i]) {
+            j--;
+        }
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+        for (int l = i + 1, r = a.length - 1; l < r; l++, r--) {
+            tmp = a[l];
+            a[l] = a[r];
+            a[r] = tmp;
+        }
+        return true;
+    }
+
+    private static long cellKey(double lat, double lon, double latCellDegrees, double lonCellDegrees,
+            int dRow, int dCol) {
+        int row = (int) Math.floor(lat / latCellDegrees) + dRow;
+        int col = (int) Math.floor(lon / lonCellDegrees) + dCol;
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * Sequenced stops of a candidate trip, indexes refer to positions in the member list
+     */
+    private record Route(int[] pickupOrder, int[] dropoffOrder, double totalMinutes,
+            double sumArrivalMinutes, double maxDelayMinutes) {
+
+        int[] pickupSequence() {
+            return toSequence(pickupOrder, 1);
+        }
+
+        int[] dropoffSequence() {
+            return toSequence(dropoffOrder, pickupOrder.length + 1);
+        }
+
+        private static int[] toSequence(int[] order, int firstStop) {
+            int[] sequence = new int[order.length];
+            for (int stop = 0; stop < order.length; stop++) {
+                sequence[order[stop]] = firstStop + stop;
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Planned trip - orders with their 1-based pickup and drop-off stop numbers
+     */
+    public static class Trip {
+
+        final long[] orderIds;
+        final int[] pickupSequence;
+        final int[] dropoffSequence;
+        final double pickupLatitude;
+        final double pickupLongitude;
+        final double plannedMinutes;
+
+        Trip(long[] orderIds, int[] pickupSequence, int[] dropoffSequence,
+                double pickupLatitude, double pickupLongitude, double plannedMinutes) {
+            this.orderIds = orderIds;
+            this.pickupSequence = pickupSequence;
+            this.dropoffSequence = dropoffSequence;
+            this.pickupLatitude = pickupLatitude;
+            this.pickupLongitude = pickupLongitude;
+            this.plannedMinutes = plannedMinutes;
+        }
+
+        static Trip single(long orderId, double pickupLatitude, double pickupLongitude) {
+            return new Trip(new long[] { orderId }, new int[] { 1 }, new int[] { 2 },
+                    pickupLatitude, pickupLongitude, 0.0);
+        }
+
+        public int size() {
+            return orderIds.length;
+        }
+    }
+}
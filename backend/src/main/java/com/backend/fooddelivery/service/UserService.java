@@ -5,14 +5,14 @@ import com.backend.fooddelivery.dto.response.UserResponse;
 import com.backend.fooddelivery.exception.ResourceNotFoundException;
 import com.backend.fooddelivery.model.User;
 import com.backend.fooddelivery.repository.UserRepository;
+import com.backend.fooddelivery.security.CurrentUserResolver;
+import com.backend.fooddelivery.security.RevokedSubjectRegistry;
 import com.backend.fooddelivery.util.UserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -26,9 +26,18 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
     @Autowired
     private FileUploadService fileUploadService;
 
+    @Autowired
+    private RevokedSubjectRegistry revokedSubjectRegistry;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     /**
      * Get all users with pagination
      */
@@ -51,9 +60,7 @@ public class UserService {
      * Get current authenticated user
      */
     public UserResponse getCurrentUser() {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = currentUserResolver.getCurrentUser();
         return UserMapper.toUserResponse(user);
     }
 
@@ -80,9 +87,7 @@ public class UserService {
      */
     @Transactional
     public UserResponse updateCurrentUser(UpdateUserRequest request) {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = loadCurrentUserForUpdate();
 
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
@@ -98,9 +103,7 @@ public class UserService {
     @Transactional
     @CacheEvict(value = "users", allEntries = true)
     public UserResponse uploadProfilePicture(MultipartFile file) {
-        String email = getCurrentUserEmail();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user = loadCurrentUserForUpdate();
 
         // Delete old profile picture if exists
         if (user.getProfilePicture() != null) {
@@ -126,13 +129,18 @@ public class UserService {
 
         user.setIsActive(false);
         userRepository.save(user);
+        revokedSubjectRegistry.revoke(user.getEmail());
+        refreshTokenService.revokeAll(user.getId());
+        currentUserResolver.evict(user.getEmail());
     }
 
     /**
-     * Get current authenticated user's email
+     * Load a managed copy of the current user to modify, the resolver's copy is shared
      */
-    private String getCurrentUserEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
+    private User loadCurrentUserForUpdate() {
+        User current = currentUserResolver.getCurrentUser();
+        currentUserResolver.evict(current.getEmail());
+        return userRepository.findById(current.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
     }
 }
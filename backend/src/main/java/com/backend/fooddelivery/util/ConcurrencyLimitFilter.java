@@ -0,0 +1,246 @@
+package com.backend.fooddelivery.util;
+
+import com.backend.fooddelivery.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Concurrency Limit Filter - Sheds load before it piles up on threads and connections
+ *
+ * Each route class has its own adaptive concurrency limit. A request over its class's limit
+ * is rejected right away with 503 and Retry-After instead of waiting for a thread or database
+ * connection, so the requests that are admitted still finish quickly. Before that, the
+ * RequestScheduler decides by priority whether the request gets one of the shared slots at
+ * all; degraded browse requests are answered from its stale cache where possible. Runs ahead
+ * of Spring Security so shed requests cost no authentication work. Health checks and live
+ * tracking streams are not limited.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RequestScheduler requestScheduler;
+
+    @Value("${concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${concurrency-limit.min-limit:2}")
+    private int minLimit;
+
+    @Value("${concurrency-limit.browse.initial-limit:50}")
+    private int browseInitialLimit;
+
+    @Value("${concurrency-limit.browse.max-limit:200}")
+    private int browseMaxLimit;
+
+    @Value("${concurrency-limit.order.initial-limit:20}")
+    private int orderInitialLimit;
+
+    @Value("${concurrency-limit.order.max-limit:100}")
+    private int orderMaxLimit;
+
+    @Value("${concurrency-limit.auth.initial-limit:10}")
+    private int authInitialLimit;
+
+    @Value("${concurrency-limit.auth.max-limit:50}")
+    private int authMaxLimit;
+
+    @Value("${concurrency-limit.admin.initial-limit:5}")
+    private int adminInitialLimit;
+
+    @Value("${concurrency-limit.admin.max-limit:20}")
+    private int adminMaxLimit;
+
+    private final Map<RouteClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(RouteClass.class);
+    private final Map<RouteClass, Counter> rejected = new EnumMap<>(RouteClass.class);
+
+    private List<PathPattern> unlimitedPaths;
+    private List<Route> routes;
+
+    @PostConstruct
+    public void init() {
+        limits.put(RouteClass.BROWSE, new AdaptiveConcurrencyLimit(browseInitialLimit, minLimit, browseMaxLimit));
+        limits.put(RouteClass.ORDER, new AdaptiveConcurrencyLimit(orderInitialLimit, minLimit, orderMaxLimit));
+        limits.put(RouteClass.AUTH, new AdaptiveConcurrencyLimit(authInitialLimit, minLimit, authMaxLimit));
+        limits.put(RouteClass.ADMIN, new AdaptiveConcurrencyLimit(adminInitialLimit, minLimit, adminMaxLimit));
+
+        for (Map.Entry<RouteClass, AdaptiveConcurrencyLimit> entry : limits.entrySet()) {
+            String routeClass = entry.getKey().name().toLowerCase();
+            AdaptiveConcurrencyLimit limit = entry.getValue();
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("route_class", routeClass).register(meterRegistry);
+            Gauge.builder("http.concurrency.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("route_class", routeClass).register(meterRegistry);
+            rejected.put(entry.getKey(), Counter.builder("http.concurrency.rejected")
+                    .tag("route_class", routeClass).register(meterRegistry));
+        }
+
+        PathPatternParser parser = new PathPatternParser();
+        unlimitedPaths = List.of(
+                parser.parse("/api/health/**"),
+                parser.parse("/api/orders/*/track"),
+                parser.parse("/actuator/health/**"));
+        routes = List.of(
+                new Route(parser.parse("/api/auth/**"), RouteClass.AUTH),
+                new Route(parser.parse("/api/admin/**"), RouteClass.ADMIN),
+                new Route(parser.parse("/api/analytics/**"), RouteClass.ADMIN),
+                new Route(parser.parse("/actuator/**"), RouteClass.ADMIN),
+                new Route(parser.parse("/api/orders/**"), RouteClass.ORDER),
+                new Route(parser.parse("/api/payments/**"), RouteClass.ORDER),
+                new Route(parser.parse("/api/deliveries/**"), RouteClass.ORDER),
+                new Route(parser.parse("/api/**"), RouteClass.BROWSE));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteClass routeClass = classify(request);
+        if (routeClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!requestScheduler.admit(requestScheduler.priorityOf(routeClass, request.getMethod()))) {
+            degrade(routeClass, request, response);
+            return;
+        }
+        AdaptiveConcurrencyLimit limit = enabled ? limits.get(routeClass) : null;
+        if (limit != null && !limit.tryAcquire()) {
+            requestScheduler.release();
+            rejected.get(routeClass).increment();
+            degrade(routeClass, request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            if (requestScheduler.shouldCapture(routeClass, request)) {
+                ContentCachingResponseWrapper capturing = new ContentCachingResponseWrapper(response);
+                filterChain.doFilter(request, capturing);
+                requestScheduler.capture(request, capturing);
+            } else {
+                filterChain.doFilter(request, response);
+            }
+            if (request.isAsyncStarted()) {
+                // Futures complete on other threads, release when the response is actually done
+                request.getAsyncContext().addListener(new ReleasingListener(limit, start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                complete(limit, start, response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+        }
+    }
+
+    private void complete(AdaptiveConcurrencyLimit limit, long start, boolean dropped) {
+        if (limit != null) {
+            limit.release(System.nanoTime() - start, dropped);
+        }
+        requestScheduler.release();
+    }
+
+    private void degrade(RouteClass routeClass, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!requestScheduler.serveStale(routeClass, request, response)) {
+            reject(request, response);
+        }
+    }
+
+    private RouteClass classify(HttpServletRequest request) {
+        PathContainer path = RequestPath.parse(request.getRequestURI(), request.getContextPath()).pathWithinApplication();
+        for (PathPattern pattern : unlimitedPaths) {
+            if (pattern.matches(path)) {
+                return null;
+            }
+        }
+        for (Route route : routes) {
+            if (route.pattern().matches(path)) {
+                return route.routeClass();
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "Server is busy, please retry",
+                request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private record Route(PathPattern pattern, RouteClass routeClass) {
+    }
+
+    private class ReleasingListener implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final long start;
+        private boolean timedOut;
+
+        ReleasingListener(AdaptiveConcurrencyLimit limit, long start) {
+            this.limit = limit;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            int status = ((HttpServletResponse) event.getSuppliedResponse()).getStatus();
+            complete(limit, start, timedOut || status == HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            timedOut = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
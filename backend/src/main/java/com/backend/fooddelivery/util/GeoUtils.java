@@ -0,0 +1,44 @@
+package com.backend.fooddelivery.util;
+
+/**
+ * Geo utility for distance calculations
+ */
+public class GeoUtils {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Typical ratio of road distance to straight-line distance in a city
+    public static final double ROAD_FACTOR = 1.3;
+
+    /**
+     * Calculate distance between two points using Haversine formula (km)
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Initial bearing from the first point to the second, in degrees clockwise from north [0, 360)
+     */
+    public static double bearingDegrees(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double lambda = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(lambda) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(lambda);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360.0) % 360.0;
+    }
+
+    /**
+     * Smallest angle between two bearings, in degrees [0, 180]
+     */
+    public static double bearingDifference(double a, double b) {
+        double diff = Math.abs(a - b) % 360.0;
+        return diff > 180.0 ? 360.0 - diff : diff;
+    }
+}
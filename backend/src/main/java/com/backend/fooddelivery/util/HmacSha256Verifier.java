@@ -0,0 +1,144 @@
+package com.backend.fooddelivery.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+/**
+ * HMAC-SHA256 Verifier - Checks hex encoded HMAC-SHA256 signatures against a fixed secret
+ *
+ * Mac instances are not thread-safe and expensive to look up and initialize, so each thread
+ * clones its own from a prototype initialized once with the key. Messages are encoded into a
+ * per-thread scratch buffer and the signature is decoded and compared in place, so a
+ * verification allocates only the 32-byte digest the JCE returns. The comparison always examines
+ * every byte, so timing does not reveal how much of a forged signature was correct.
+ */
+public class HmacSha256Verifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final int MAX_SCRATCH = 64 * 1024;
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final ThreadLocal<State> state;
+
+    public HmacSha256Verifier(String secret) {
+        try {
+            key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+        state = ThreadLocal.withInitial(() -> new State(newMac()));
+    }
+
+    /**
+     * Check the signature of a message
+     */
+    public boolean verify(String message, String signature) {
+        if (message == null || signature == null) {
+            return false;
+        }
+        State s = state.get();
+        s.update(message);
+        return s.matches(signature);
+    }
+
+    /**
+     * Check the signature of two values joined with '|', as used for payment signatures
+     */
+    public boolean verify(String first, String second, String signature) {
+        if (first == null || second == null || signature == null) {
+            return false;
+        }
+        State s = state.get();
+        s.update(first);
+        s.mac.update((byte) '|');
+        s.update(second);
+        return s.matches(signature);
+    }
+
+    /**
+     * Compute the hex encoded signature of a message
+     */
+    public String sign(String message) {
+        State s = state.get();
+        s.update(message);
+        return HexFormat.of().formatHex(s.mac.doFinal());
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // Providers without clone support fall back to a fresh instance per thread
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HmacSHA256 not available", ex);
+            }
+        }
+    }
+
+    /**
+     * Per-thread Mac and scratch buffers
+     */
+    private static final class State {
+
+        final Mac mac;
+        final byte[] expected = new byte[MAC_LENGTH];
+        byte[] scratch = new byte[512];
+
+        State(Mac mac) {
+            this.mac = mac;
+        }
+
+        void update(String text) {
+            int length = text.length();
+            if (length > scratch.length) {
+                if (length > MAX_SCRATCH) {
+                    // Keep the per-thread buffer bounded, oversized messages are encoded directly
+                    mac.update(text.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                scratch = new byte[Math.min(Math.max(length, scratch.length * 2), MAX_SCRATCH)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    // Non-ASCII input takes the regular UTF-8 path
+                    mac.update(scratch, 0, i);
+                    mac.update(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                scratch[i] = (byte) c;
+            }
+            mac.update(scratch, 0, length);
+        }
+
+        boolean matches(String signature) {
+            try {
+                mac.doFinal(expected, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC output buffer too small", e);
+            }
+            if (signature.length() != MAC_LENGTH * 2) {
+                return false;
+            }
+            int diff = 0;
+            for (int i = 0; i < MAC_LENGTH; i++) {
+                int high = Character.digit(signature.charAt(2 * i), 16);
+                int low = Character.digit(signature.charAt(2 * i + 1), 16);
+                // An invalid digit (-1) sets bits outside the low byte, so it can never compare equal
+                diff |= ((high << 4) | low) ^ (expected[i] & 0xff);
+            }
+            return diff == 0;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.backend.fooddelivery.util;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * JDBC Bucket Store - Buckets shared by all nodes through the rate_limit_buckets table
+ *
+ * Uses Bucket4j's proxy manager with SELECT ... FOR UPDATE, so limits hold across replicas.
+ * Each node consumes tokens from its local copy of a bucket and writes them back in one
+ * transaction once its sync threshold is used or sync-interval-ms has passed, so most requests
+ * need no database round trip. The cluster can overshoot a limit by at most the threshold per
+ * node between synchronizations, so the threshold is capped at max-overshoot-ratio of the
+ * bucket's capacity; small buckets such as login get no local batching at all.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "jdbc")
+public class JdbcBucketStore implements RateLimitBucketStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcBucketStore.class);
+
+    private static final String SELECT_FOR_UPDATE = "SELECT state FROM rate_limit_buckets WHERE id = ? FOR UPDATE";
+    private static final String INSERT = "INSERT INTO rate_limit_buckets (id, state, expires_at) VALUES (?, NULL, ?)";
+    private static final String UPDATE = "UPDATE rate_limit_buckets SET state = ?, expires_at = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM rate_limit_buckets WHERE id = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM rate_limit_buckets WHERE expires_at < ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${rate-limit.jdbc.sync-tokens:10}")
+    private long syncTokens;
+
+    @Value("${rate-limit.jdbc.sync-interval-ms:1000}")
+    private long syncIntervalMillis;
+
+    @Value("${rate-limit.jdbc.max-overshoot-ratio:0.1}")
+    private double maxOvershootRatio;
+
+    private SelectForUpdateProxyManager proxyManager;
+
+    @PostConstruct
+    public void init() {
+        proxyManager = new SelectForUpdateProxyManager();
+    }
+
+    @Override
+    public Bucket create(String key, BucketConfiguration limits) {
+        RemoteBucketBuilder<String> builder = proxyManager.builder();
+        long threshold = syncThreshold(limits);
+        if (threshold > 1) {
+            // The delaying optimization cannot recreate a missing bucket, so create it beforehand
+            proxyManager.builder().build(key, limits).getAvailableTokens();
+            builder = builder.withOptimization(
+                    Optimizations.delaying(new DelayParameters(threshold, Duration.ofMillis(syncIntervalMillis))));
+        }
+        return builder.build(key, limits);
+    }
+
+    /**
+     * Tokens a node may consume locally before writing back, at most max-overshoot-ratio of the smallest capacity
+     */
+    private long syncThreshold(BucketConfiguration limits) {
+        long capacity = Long.MAX_VALUE;
+        for (Bandwidth bandwidth : limits.getBandwidths()) {
+            capacity = Math.min(capacity, bandwidth.getCapacity());
+        }
+        return Math.min(syncTokens, (long) (capacity * maxOvershootRatio));
+    }
+
+    /**
+     * Delete buckets that have refilled completely, they are recreated full on next use
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.jdbc.cleanup-interval-ms:600000}", initialDelayString = "${rate-limit.jdbc.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED, System.currentTimeMillis());
+        logger.debug("Deleted {} expired rate limit buckets", deleted);
+    }
+
+    private class SelectForUpdateProxyManager extends AbstractSelectForUpdateBasedProxyManager<String> {
+
+        SelectForUpdateProxyManager() {
+            super(ClientSideConfig.getDefault());
+        }
+
+        @Override
+        protected SelectForUpdateBasedTransaction allocateTransaction(String key) {
+            return new BucketTransaction(key);
+        }
+
+        @Override
+        public void removeProxy(String key) {
+            jdbcTemplate.update(DELETE, key);
+        }
+    }
+
+    private class BucketTransaction implements SelectForUpdateBasedTransaction {
+
+        private final String key;
+        private final Connection connection;
+
+        BucketTransaction(String key) {
+            this.key = key;
+            try {
+                this.connection = dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot open rate limit store connection", e);
+            }
+        }
+
+        @Override
+        public void begin() {
+            run(() -> connection.setAutoCommit(false));
+        }
+
+        @Override
+        public LockAndGetResult tryLockAndGet() {
+            try (PreparedStatement select = connection.prepareStatement(SELECT_FOR_UPDATE)) {
+                select.setString(1, key);
+                try (ResultSet rs = select.executeQuery()) {
+                    return rs.next() ? LockAndGetResult.locked(rs.getBytes(1)) : LockAndGetResult.notLocked();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot lock rate limit bucket " + key, e);
+            }
+        }
+
+        @Override
+        public boolean tryInsertEmptyData() {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                insert.setString(1, key);
+                insert.setLong(2, System.currentTimeMillis());
+                return insert.executeUpdate() > 0;
+            } catch (SQLException e) {
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    return false; // Another node inserted it first, the caller rolls back and locks it
+                }
+                throw new IllegalStateException("Cannot insert rate limit bucket " + key, e);
+            }
+        }
+
+        @Override
+        public void update(byte[] data, RemoteBucketState newState) {
+            long nowMillis = System.currentTimeMillis();
+            long refillMillis = Duration.ofNanos(newState.calculateFullRefillingTime(nowMillis * 1_000_000L)).toMillis();
+            try (PreparedStatement update = connection.prepareStatement(UPDATE)) {
+                update.setBytes(1, data);
+                update.setLong(2, nowMillis + refillMillis);
+                update.setString(3, key);
+                update.executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot update rate limit bucket " + key, e);
+            }
+        }
+
+        @Override
+        public void commit() {
+            run(connection::commit);
+        }
+
+        @Override
+        public void rollback() {
+            run(connection::rollback);
+        }
+
+        @Override
+        public void release() {
+            try {
+                connection.setAutoCommit(true);
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn("Failed to release rate limit store connection: {}", e.getMessage());
+            }
+        }
+
+        private void run(SqlAction action) {
+            try {
+                action.run();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Rate limit store transaction failed for " + key, e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+}
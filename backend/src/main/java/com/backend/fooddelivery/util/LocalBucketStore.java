@@ -0,0 +1,25 @@
+package com.backend.fooddelivery.util;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local Bucket Store - In-memory buckets, each node enforces limits on its own
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "local", matchIfMissing = true)
+public class LocalBucketStore implements RateLimitBucketStore {
+
+    @Override
+    public Bucket create(String key, BucketConfiguration limits) {
+        LocalBucketBuilder builder = Bucket.builder();
+        for (Bandwidth bandwidth : limits.getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+}
@@ -30,6 +30,8 @@ public class OrderMapper {
         response.setDiscount(order.getDiscount());
         response.setTotalAmount(order.getTotalAmount());
         response.setDeliveryAddress(order.getDeliveryAddress());
+        response.setDeliveryLatitude(order.getDeliveryLatitude());
+        response.setDeliveryLongitude(order.getDeliveryLongitude());
         response.setSpecialInstructions(order.getSpecialInstructions());
         response.setDeliveryPartnerId(order.getDeliveryPartnerId());
         response.setEstimatedDeliveryTime(order.getEstimatedDeliveryTime());
@@ -0,0 +1,126 @@
+package com.backend.fooddelivery.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Priority Admission - Shared request capacity handed out by priority
+ *
+ * Each priority may only fill the capacity up to its own ceiling, so the top slots stay
+ * reserved for higher priorities. Requests that find no free slot wait a bounded time, and a
+ * freed slot always goes to the highest priority that is waiting and may use it.
+ */
+public class PriorityAdmission {
+
+    private final Map<RequestPriority, Integer> ceilings;
+    private final int maxQueueDepth;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<RequestPriority, Condition> conditions = new EnumMap<>(RequestPriority.class);
+
+    // Guarded by lock
+    private final Map<RequestPriority, Integer> waiting = new EnumMap<>(RequestPriority.class);
+    private int inFlight;
+
+    public PriorityAdmission(Map<RequestPriority, Integer> ceilings, int maxQueueDepth) {
+        this.ceilings = new EnumMap<>(ceilings);
+        this.maxQueueDepth = maxQueueDepth;
+        for (RequestPriority priority : RequestPriority.values()) {
+            conditions.put(priority, lock.newCondition());
+            waiting.put(priority, 0);
+        }
+    }
+
+    /**
+     * Take a slot, waiting up to maxWaitMillis for one; false if none became free
+     */
+    public boolean acquire(RequestPriority priority, long maxWaitMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (waiting.get(priority) == 0 && canRun(priority)) {
+                inFlight++;
+                return true;
+            }
+            if (maxWaitMillis <= 0 || waiting.get(priority) >= maxQueueDepth) {
+                return false;
+            }
+
+            waiting.merge(priority, 1, Integer::sum);
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (!canRun(priority)) {
+                    if (remaining <= 0) {
+                        // Pass on a wakeup this request may have consumed
+                        signalNext();
+                        return false;
+                    }
+                    remaining = conditions.get(priority).awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting.merge(priority, -1, Integer::sum);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back a slot
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth(RequestPriority priority) {
+        lock.lock();
+        try {
+            return waiting.get(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canRun(RequestPriority priority) {
+        if (inFlight >= ceilings.get(priority)) {
+            return false;
+        }
+        // Higher priorities that are waiting for a slot they could use go first
+        for (RequestPriority higher : RequestPriority.values()) {
+            if (higher == priority) {
+                return true;
+            }
+            if (waiting.get(higher) > 0 && inFlight < ceilings.get(higher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void signalNext() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            if (waiting.get(priority) > 0 && inFlight < ceilings.get(priority)) {
+                conditions.get(priority).signal();
+                return;
+            }
+        }
+    }
+}
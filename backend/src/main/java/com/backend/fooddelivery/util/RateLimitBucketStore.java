@@ -0,0 +1,15 @@
+package com.backend.fooddelivery.util;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Rate Limit Bucket Store - Creates the bucket backing one client's limit
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Create the bucket for a policy and client key
+     */
+    Bucket create(String key, BucketConfiguration limits);
+}
@@ -1,88 +1,160 @@
 package com.backend.fooddelivery.util;
 
+import com.backend.fooddelivery.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
-import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Rate Limiting Interceptor - Implements rate limiting using Bucket4j
+ *
+ * Every client gets its own bucket per policy: authenticated users are limited by user ID,
+ * anonymous clients by IP address. Buckets live in a size-bounded cache and are dropped once
+ * idle long enough to have refilled completely, so dropping them never loosens a limit.
+ * Where the bucket state lives, in memory or shared between nodes, is up to the configured
+ * RateLimitBucketStore.
  */
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    @Autowired
+    @Qualifier("loginBucketConfiguration")
+    private BucketConfiguration loginLimits;
+
     @Autowired
-    @Qualifier("loginBucket")
-    private Bucket loginBucket;
+    @Qualifier("orderBucketConfiguration")
+    private BucketConfiguration orderLimits;
 
     @Autowired
-    @Qualifier("orderBucket")
-    private Bucket orderBucket;
+    @Qualifier("generalBucketConfiguration")
+    private BucketConfiguration generalLimits;
 
     @Autowired
-    @Qualifier("generalBucket")
-    private Bucket generalBucket;
+    private RateLimitBucketStore bucketStore;
 
     @Value("${rate-limit.enabled:true}")
     private boolean rateLimitEnabled;
 
-    // Per-IP rate limiting buckets
-    private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
+    @Value("${rate-limit.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    private List<Policy> policies;
+    private Policy generalPolicy;
+
+    // Policy and client key -> that client's bucket
+    private Cache<String, Bucket> buckets;
+
+    @PostConstruct
+    public void init() {
+        PathPatternParser parser = new PathPatternParser();
+        policies = List.of(
+                new Policy("login", null, parser.parse("/api/auth/login"), loginLimits),
+                new Policy("order", "POST", parser.parse("/api/orders/**"), orderLimits));
+        generalPolicy = new Policy("general", null, null, generalLimits);
+
+        long idleNanos = 0;
+        for (BucketConfiguration limits : List.of(loginLimits, orderLimits, generalLimits)) {
+            idleNanos = Math.max(idleNanos, timeToFullNanos(limits));
+        }
+        buckets = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterAccess(Duration.ofNanos(idleNanos))
+                .build();
+    }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        if (!rateLimitEnabled) {
+        // Async re-dispatches (futures, streams) were counted on the original request
+        if (!rateLimitEnabled || request.getDispatcherType() == DispatcherType.ASYNC) {
             return true;
         }
 
-        String path = request.getRequestURI();
-        String method = request.getMethod();
-        String clientIp = getClientIp(request);
-        Bucket bucket = selectBucket(path, clientIp, method);
+        Policy policy = selectPolicy(request);
+        String key = policy.name() + ":" + getClientKey(request);
+        Bucket bucket = buckets.get(key, k -> bucketStore.create(k, policy.limits()));
+        ConsumptionProbe probe;
+        try {
+            probe = bucket.tryConsumeAndReturnRemaining(1);
+        } catch (RuntimeException ex) {
+            // An unreachable shared store should not take the API down with it; start over
+            // with a fresh bucket on the next request
+            buckets.invalidate(key);
+            logger.warn("Rate limit store unavailable, allowing request: {}", ex.getMessage());
+            return true;
+        }
 
-        if (bucket.tryConsume(1)) {
+        if (probe.isConsumed()) {
             return true;
         } else {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + 999_999_999L));
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
             response.setContentType("application/json");
             response.getWriter().write("{\"error\":\"Too many requests. Please try again later.\",\"status\":429}");
             return false;
         }
     }
 
-    private Bucket selectBucket(String path, String clientIp, String method) {
-        // Login endpoint - use login bucket
-        if (path.contains("/api/auth/login")) {
-            return loginBucket;
+    private Policy selectPolicy(HttpServletRequest request) {
+        PathContainer path = ServletRequestPathUtils.hasParsedRequestPath(request)
+                ? ServletRequestPathUtils.getParsedRequestPath(request).pathWithinApplication()
+                : ServletRequestPathUtils.parseAndCache(request).pathWithinApplication();
+        String method = request.getMethod();
+        for (Policy policy : policies) {
+            if ((policy.method() == null || policy.method().equals(method)) && policy.pattern().matches(path)) {
+                return policy;
+            }
         }
+        return generalPolicy;
+    }
 
-        // Order endpoints - use order bucket
-        if (path.contains("/api/orders") && "POST".equals(method)) {
-            return orderBucket;
+    private String getClientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return "user:" + principal.getId();
         }
-
-        // General endpoints - use per-IP bucket
-        return ipBuckets.computeIfAbsent(clientIp, ip -> generalBucket);
+        // Forwarding headers are client-controlled; Tomcat's RemoteIpValve has already replaced
+        // the remote address with the forwarded client address when the peer is a trusted proxy
+        return "ip:" + request.getRemoteAddr();
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
+    private static long timeToFullNanos(BucketConfiguration limits) {
+        long nanos = 0;
+        for (Bandwidth bandwidth : limits.getBandwidths()) {
+            long periods = (bandwidth.getCapacity() + bandwidth.getRefillTokens() - 1) / bandwidth.getRefillTokens();
+            nanos = Math.max(nanos, periods * bandwidth.getRefillPeriodNanos());
         }
-        return request.getRemoteAddr();
+        return nanos;
+    }
+
+    private record Policy(String name, String method, PathPattern pattern, BucketConfiguration limits) {
     }
 }
@@ -0,0 +1,10 @@
+package com.backend.fooddelivery.util;
+
+/**
+ * Request Priority - Scheduling classes, highest priority first
+ */
+public enum RequestPriority {
+    CRITICAL, // Order, payment and delivery writes
+    NORMAL,   // Auth, admin and order reads
+    LOW       // Browsing
+}
@@ -0,0 +1,165 @@
+package com.backend.fooddelivery.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request Scheduler - Admits requests by priority so orders keep flowing under load
+ *
+ * Order, payment and delivery writes may use the whole capacity, auth, admin and order reads
+ * all but the critical reserve, and browsing a further reserve less, so browsing is the first
+ * to run out of slots. Critical and normal requests wait briefly for a slot; browsing does not
+ * wait but falls back to a stale copy of the response, and is shed only if there is none.
+ */
+@Component
+public class RequestScheduler {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${request-scheduling.enabled:true}")
+    private boolean enabled;
+
+    @Value("${request-scheduling.capacity:100}")
+    private int capacity;
+
+    @Value("${request-scheduling.critical-reserve:20}")
+    private int criticalReserve;
+
+    @Value("${request-scheduling.normal-reserve:20}")
+    private int normalReserve;
+
+    @Value("${request-scheduling.critical-max-wait-ms:2000}")
+    private long criticalMaxWaitMillis;
+
+    @Value("${request-scheduling.normal-max-wait-ms:500}")
+    private long normalMaxWaitMillis;
+
+    @Value("${request-scheduling.low-max-wait-ms:0}")
+    private long lowMaxWaitMillis;
+
+    @Value("${request-scheduling.max-queue-depth:50}")
+    private int maxQueueDepth;
+
+    @Value("${request-scheduling.stale-cache.max-size:1000}")
+    private long staleCacheMaxSize;
+
+    @Value("${request-scheduling.stale-cache.max-age-ms:600000}")
+    private long staleCacheMaxAgeMillis;
+
+    @Value("${request-scheduling.stale-cache.refresh-interval-ms:5000}")
+    private long staleCacheRefreshIntervalMillis;
+
+    private PriorityAdmission admission;
+    private StaleResponseCache staleResponses;
+    private final Map<RequestPriority, Long> maxWaitMillis = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Timer> queueWait = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Counter> rejected = new EnumMap<>(RequestPriority.class);
+    private Counter staleServed;
+
+    @PostConstruct
+    public void init() {
+        Map<RequestPriority, Integer> ceilings = new EnumMap<>(RequestPriority.class);
+        ceilings.put(RequestPriority.CRITICAL, capacity);
+        ceilings.put(RequestPriority.NORMAL, capacity - criticalReserve);
+        ceilings.put(RequestPriority.LOW, capacity - criticalReserve - normalReserve);
+        admission = new PriorityAdmission(ceilings, maxQueueDepth);
+        staleResponses = new StaleResponseCache(staleCacheMaxSize, staleCacheMaxAgeMillis, staleCacheRefreshIntervalMillis);
+
+        maxWaitMillis.put(RequestPriority.CRITICAL, criticalMaxWaitMillis);
+        maxWaitMillis.put(RequestPriority.NORMAL, normalMaxWaitMillis);
+        maxWaitMillis.put(RequestPriority.LOW, lowMaxWaitMillis);
+
+        for (RequestPriority priority : RequestPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            Gauge.builder("http.scheduling.queue.depth", admission, a -> a.getQueueDepth(priority))
+                    .tag("priority", tag).register(meterRegistry);
+            queueWait.put(priority, Timer.builder("http.scheduling.queue.wait").tag("priority", tag).register(meterRegistry));
+            rejected.put(priority, Counter.builder("http.scheduling.rejected").tag("priority", tag).register(meterRegistry));
+        }
+        Gauge.builder("http.scheduling.in_flight", admission, PriorityAdmission::getInFlight).register(meterRegistry);
+        staleServed = Counter.builder("http.scheduling.stale_served").register(meterRegistry);
+    }
+
+    /**
+     * Scheduling priority of a request
+     */
+    public RequestPriority priorityOf(RouteClass routeClass, String method) {
+        return switch (routeClass) {
+            case ORDER -> "GET".equals(method) || "HEAD".equals(method) ? RequestPriority.NORMAL : RequestPriority.CRITICAL;
+            case BROWSE -> RequestPriority.LOW;
+            case AUTH, ADMIN -> RequestPriority.NORMAL;
+        };
+    }
+
+    /**
+     * Take a slot for a request, false if it should be degraded instead
+     */
+    public boolean admit(RequestPriority priority) {
+        if (!enabled) {
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean admitted;
+        try {
+            admitted = admission.acquire(priority, maxWaitMillis.get(priority));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        queueWait.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!admitted) {
+            rejected.get(priority).increment();
+        }
+        return admitted;
+    }
+
+    /**
+     * Give back the slot of an admitted request
+     */
+    public void release() {
+        if (enabled) {
+            admission.release();
+        }
+    }
+
+    /**
+     * Answer a degraded browse request from the stale cache, false if it has to be shed
+     */
+    public boolean serveStale(RouteClass routeClass, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (routeClass != RouteClass.BROWSE || !staleResponses.serve(request, response)) {
+            return false;
+        }
+        staleServed.increment();
+        return true;
+    }
+
+    /**
+     * Whether to record this browse response for serving stale later
+     */
+    public boolean shouldCapture(RouteClass routeClass, HttpServletRequest request) {
+        return routeClass == RouteClass.BROWSE && staleResponses.shouldCapture(request);
+    }
+
+    /**
+     * Record a browse response and send it on to the client
+     */
+    public void capture(HttpServletRequest request, ContentCachingResponseWrapper response) throws IOException {
+        staleResponses.capture(request, response);
+    }
+}
@@ -0,0 +1,11 @@
+package com.backend.fooddelivery.util;
+
+/**
+ * Route Class - Groups of endpoints that get their own concurrency limit
+ */
+public enum RouteClass {
+    BROWSE,
+    ORDER,
+    AUTH,
+    ADMIN
+}
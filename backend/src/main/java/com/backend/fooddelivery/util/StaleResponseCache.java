@@ -0,0 +1,83 @@
+package com.backend.fooddelivery.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Stale Response Cache - Last good responses of public browse endpoints
+ *
+ * Served in place of shedding a browse request when the server is overloaded. Only responses
+ * to anonymous GET requests are kept, so nothing user-specific is ever replayed, and each URL
+ * is captured at most once per refresh interval to keep the copying cost low.
+ */
+public class StaleResponseCache {
+
+    private final Cache<String, CachedResponse> responses;
+    private final long refreshIntervalMillis;
+
+    public StaleResponseCache(long maxSize, long maxAgeMillis, long refreshIntervalMillis) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(maxAgeMillis))
+                .build();
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * Whether this request's response should be recorded
+     */
+    public boolean shouldCapture(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || request.getHeader(HttpHeaders.AUTHORIZATION) != null) {
+            return false;
+        }
+        CachedResponse cached = responses.getIfPresent(key(request));
+        return cached == null || System.currentTimeMillis() - cached.storedAtMillis() > refreshIntervalMillis;
+    }
+
+    /**
+     * Record a successful response and send it on to the client
+     */
+    public void capture(HttpServletRequest request, ContentCachingResponseWrapper response) throws IOException {
+        if (response.getStatus() == HttpStatus.OK.value() && !request.isAsyncStarted()) {
+            responses.put(key(request), new CachedResponse(response.getContentType(),
+                    response.getContentAsByteArray(), System.currentTimeMillis()));
+        }
+        response.copyBodyToResponse();
+    }
+
+    /**
+     * Write the last good response for this request, false if there is none
+     */
+    public boolean serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!"GET".equals(request.getMethod())) {
+            return false;
+        }
+        CachedResponse cached = responses.getIfPresent(key(request));
+        if (cached == null) {
+            return false;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(cached.contentType());
+        response.setHeader(HttpHeaders.AGE, String.valueOf((System.currentTimeMillis() - cached.storedAtMillis()) / 1000));
+        response.setHeader("X-Cache", "STALE");
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+        return true;
+    }
+
+    private static String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+    }
+
+    private record CachedResponse(String contentType, byte[] body, long storedAtMillis) {
+    }
+}
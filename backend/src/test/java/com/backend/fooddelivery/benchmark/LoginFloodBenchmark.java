@@ -0,0 +1,131 @@
+package com.backend.fooddelivery.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Login Flood Benchmark - Browsing latency while logins saturate password hashing
+ *
+ * Runs against a live instance: measures GET /api/restaurants latency on its own, then again
+ * while many clients hammer POST /api/auth/login, backing off for Retry-After when shed.
+ * Arguments (all optional):
+ * baseUrl email password loginClients browseClients seconds
+ */
+public class LoginFloodBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = arg(args, 0, "http://localhost:8080");
+        String email = arg(args, 1, "customer@example.com");
+        String password = arg(args, 2, "Password123@");
+        int loginClients = Integer.parseInt(arg(args, 3, "300"));
+        int browseClients = Integer.parseInt(arg(args, 4, "8"));
+        int seconds = Integer.parseInt(arg(args, 5, "15"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest browse = HttpRequest.newBuilder(URI.create(baseUrl + "/api/restaurants")).GET().build();
+        HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .build();
+
+        report("browse only", measureBrowse(client, browse, browseClients, seconds), Map.of());
+
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        Map<Integer, LongAdder> loginStatuses = new ConcurrentHashMap<>();
+        ExecutorService flood = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < loginClients; i++) {
+            flood.submit(() -> {
+                while (flooding.get()) {
+                    int status;
+                    try {
+                        status = client.send(login, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    loginStatuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                    if (status == 503) {
+                        Thread.sleep(1000); // well-behaved clients honour Retry-After
+                    }
+                }
+                return null;
+            });
+        }
+        Thread.sleep(2000); // let the flood build up
+        long[] during = measureBrowse(client, browse, browseClients, seconds);
+        flooding.set(false);
+        flood.shutdown();
+        flood.awaitTermination(30, TimeUnit.SECONDS);
+        report("browse during login flood", during, loginStatuses);
+    }
+
+    private static long[] measureBrowse(HttpClient client, HttpRequest browse, int clients, int seconds)
+            throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<long[]> perClient = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            perClient.add(null);
+            int index = i;
+            Thread thread = Thread.ofVirtual().start(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    try {
+                        client.send(browse, HttpResponse.BodyHandlers.discarding());
+                    } catch (Exception e) {
+                        continue;
+                    }
+                    if (n == samples.length) {
+                        samples = Arrays.copyOf(samples, n * 2);
+                    }
+                    samples[n++] = System.nanoTime() - start;
+                }
+                long[] measured = Arrays.copyOf(samples, n);
+                synchronized (perClient) {
+                    perClient.set(index, measured);
+                }
+            });
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    }
+
+    private static void report(String phase, long[] sortedNanos, Map<Integer, LongAdder> loginStatuses) {
+        System.out.printf("%-28s requests=%d p50=%.1fms p99=%.1fms max=%.1fms%n", phase, sortedNanos.length,
+                percentile(sortedNanos, 0.50), percentile(sortedNanos, 0.99), percentile(sortedNanos, 1.0));
+        loginStatuses.forEach((status, count) -> System.out.printf("  login status %d: %d%n", status, count.sum()));
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static String arg(String[] args, int index, String fallback) {
+        return args.length > index ? args[index] : fallback;
+    }
+}